@@ -0,0 +1,456 @@
+package fuzzlib;
+
+import java.util.Arrays;
+
+import fuzzlib.norms.Norm;
+
+/**
+ * Compact, immutable encoding of a fuzzy set for large libraries of sets. Each
+ * description point takes 6 bytes instead of 16: x value is stored as float
+ * (32 bits) and membership is quantized to 16 bits over [0,1].
+ *
+ * Maximum errors of the encoding:
+ * <ul>
+ * <li>x: rounding to float - relative error at most 2^-24 (about 6e-8 of |x|),
+ * rounding keeps the order of points. Points rounded to the same x value are
+ * joined (greater membership is left, as in FuzzySet.addPoints).</li>
+ * <li>y: absolute error at most MAX_Y_ERROR (about 7.6e-6). Memberships outside
+ * [0,1] are clipped to this range.</li>
+ * </ul>
+ * Membership, defuzzification and norm processing work directly on the compact
+ * data.
+ */
+public class CompactFuzzySet {
+
+	// number of quantization levels of membership
+	private static final double Y_LEVELS = 65535.0;
+	// maximum absolute error of quantized membership
+	public static final double MAX_Y_ERROR = 0.5 / Y_LEVELS;
+
+	// x values of points
+	private final float[] cx;
+	// quantized y values of points (unsigned 16 bit)
+	private final char[] cy;
+
+	// fuzzy set identifier
+	private final String id;
+	// fuzzy set description
+	private final String des;
+
+	/**
+	 * Creates compact encoding of a given fuzzy set.
+	 *
+	 * @param fs source fuzzy set
+	 */
+	public CompactFuzzySet(FuzzySet fs) {
+		int n = fs.size, k = 0;
+		float[] px = new float[n];
+		char[] py = new char[n];
+		for (int i = 0; i < n; i++) {
+			float x = (float) fs.xs[i];
+			char y = _quantize(fs.ys[i]);
+			if (k > 0 && px[k - 1] == x) {
+				if (py[k - 1] < y)
+					py[k - 1] = y;
+			} else {
+				px[k] = x;
+				py[k++] = y;
+			}
+		}
+		cx = k < n ? Arrays.copyOf(px, k) : px;
+		cy = k < n ? Arrays.copyOf(py, k) : py;
+		id = fs.id;
+		des = fs.des;
+	}
+
+	private static char _quantize(double y) {
+		if (!(y > 0.0)) // also NaN
+			return 0;
+		if (y >= 1.0)
+			return (char) Y_LEVELS;
+		return (char) Math.round(y * Y_LEVELS);
+	}
+
+	/**
+	 * @return number of description points
+	 */
+	public final int getSize() {
+		return cx.length;
+	}
+
+	/**
+	 * @param n index of point
+	 * @return x value of n-th point
+	 */
+	public final double getPointX(int n) {
+		return cx[n];
+	}
+
+	/**
+	 * @param n index of point
+	 * @return y value of n-th point
+	 */
+	public final double getPointY(int n) {
+		return cy[n] / Y_LEVELS;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getDescription() {
+		return des;
+	}
+
+	/**
+	 * Decodes the set into a regular fuzzy set.
+	 *
+	 * @param dest destination set (previous description is lost)
+	 * @return destination set
+	 */
+	public FuzzySet decode(FuzzySet dest) {
+		int n = cx.length;
+		dest.ClearSet();
+		if (n == 0)
+			return dest;
+		if (dest.xs.length < n) {
+			dest.xs = new double[n + FuzzySet.DEFAULT_ARRAY_EXTENSION];
+			dest.ys = new double[n + FuzzySet.DEFAULT_ARRAY_EXTENSION];
+		}
+		for (int i = 0; i < n; i++) {
+			dest.xs[i] = cx[i];
+			dest.ys[i] = cy[i] / Y_LEVELS;
+			if (dest.max_membership.y < dest.ys[i])
+				dest.max_membership.assign(dest.xs[i], dest.ys[i]);
+		}
+		dest.size = n;
+		dest.min_val = dest.xs[0];
+		dest.max_val = dest.xs[n - 1];
+		dest._changed();
+		return dest;
+	}
+
+	/**
+	 * Calculates membership of given x value.
+	 *
+	 * @param x x value
+	 * @return membership
+	 */
+	public double getMembership(double x) {
+		int size = cx.length;
+		if (size == 0)
+			return 0.0;
+		if (x <= cx[0])
+			return cy[0] / Y_LEVELS;
+		if (x >= cx[size - 1])
+			return cy[size - 1] / Y_LEVELS;
+
+		int left = 0, right = size - 1, width, act;
+		while ((width = right - left) > 1) {
+			act = left + width / 2;
+			if (x < cx[act])
+				right = act;
+			else
+				left = act;
+		}
+
+		double x1 = cx[left], y1 = cy[left];
+		return ((x - x1) * (cy[right] - y1) / (cx[right] - x1) + y1) / Y_LEVELS;
+	}
+
+	/**
+	 * @return maximum membership (-1 for an empty set)
+	 */
+	public double getMaximumMembership() {
+		if (cy.length == 0)
+			return -1.0;
+		int max = 0;
+		for (int i = 0; i < cy.length; i++) {
+			if (max < cy[i])
+				max = cy[i];
+		}
+		return max / Y_LEVELS;
+	}
+
+	/**
+	 * Defuzzyfication with given method (see FuzzySet.DeFuzzyfyEx).
+	 *
+	 * @param method defuzzyfication method (DefuzMethod)
+	 * @param alpha  alpha parameter of ICOG and MICOG methods
+	 * @param min_dx segments narrower than this value are skipped
+	 * @return defuzzified value
+	 */
+	public double DeFuzzyfyEx(short method, double alpha, double min_dx) {
+		switch (method) {
+		case DefuzMethod.DF_MAX:
+			return _defuzzCenterOfMax();
+		case DefuzMethod.DF_ICOG:
+			return _defuzzCenterOfGravity(alpha, false, min_dx);
+		case DefuzMethod.DF_MICOG:
+			return _defuzzCenterOfGravity(alpha, true, min_dx);
+		default:
+			// memberships are not negative, so COG equals ICOG with alpha 0
+			return _defuzzCenterOfGravity(0.0, false, min_dx);
+		}
+	}
+
+	public double DeFuzzyfyEx(short method, double alpha) {
+		return DeFuzzyfyEx(method, alpha, 0.000001);
+	}
+
+	public double DeFuzzyfyEx(short method) {
+		return DeFuzzyfyEx(method, 0.0, 0.000001);
+	}
+
+	private double _defuzzCenterOfMax() {
+		int size = cx.length;
+		if (size < 2)
+			return 0.0;
+		int i, idxL, idxR;
+		idxL = idxR = 0;
+		for (i = 1; i < size; i++) {
+			if (cy[idxL] < cy[i]) {
+				idxL = idxR = i;
+			} else if (cy[idxL] == cy[i])
+				idxR = i;
+		}
+
+		return (double) cx[idxL] + ((double) cx[idxR] - cx[idxL]) / 2.0;
+	}
+
+	// Indexed center of gravity - parts below alpha are cut off (modified =
+	// false) or the function is lowered by alpha (modified = true)
+	private double _defuzzCenterOfGravity(double alpha, boolean modified, double min_dx) {
+		int size = cx.length;
+		if (size < 2)
+			return 0.0;
+
+		double dx, dx2, dx3, dy, dd;
+		double x1, x2, y1, y2, base;
+		double Sdydx3, Sdddx2, Sdydx2, Sdddx;
+
+		Sdydx3 = Sdddx2 = Sdydx2 = Sdddx = 0.0;
+		base = modified ? alpha : 0.0;
+
+		for (int i = 0; i < (size - 1); i++) {
+			x1 = cx[i];
+			x2 = cx[i + 1];
+			y1 = cy[i] / Y_LEVELS;
+			y2 = cy[i + 1] / Y_LEVELS;
+			// if both start and end point are < alpha then no calculations
+			if (y1 >= alpha || y2 >= alpha) {
+				if (y1 < alpha) { // => calculate new start point
+					x1 = x1 + (x2 - x1) * (alpha - y1) / (y2 - y1);
+					y1 = alpha;
+				}
+				if (y2 < alpha) { // => calculate new end point
+					x2 = x2 - (x2 - x1) * (alpha - y2) / (y1 - y2);
+					y2 = alpha;
+				}
+				y1 -= base;
+				y2 -= base;
+
+				dx = x2 - x1;
+				if (dx > min_dx) {
+					dy = y2 - y1;
+					dx2 = x2 * x2 - x1 * x1;
+					dx3 = x2 * x2 * x2 - x1 * x1 * x1;
+					dd = x2 * y1 - x1 * y2;
+
+					Sdydx3 += dy * dx3 / dx;
+					Sdddx2 += dd * dx2 / dx;
+					Sdydx2 += dy * dx2 / dx;
+					Sdddx += dd * dx / dx;
+				}
+			}
+		}
+
+		if ((Sdydx2 / 2.0 + Sdddx) != 0.0)
+			return (Sdydx3 / 3.0 + Sdddx2 / 2.0) / (Sdydx2 / 2.0 + Sdddx);
+		else
+			return ((double) cx[size - 1] - cx[0]) / 2.0 + cx[0];
+	}
+
+	/**
+	 * Processes a compact set and a regular set with a norm. Points are merged
+	 * directly from the compact data (as FuzzySet.mergeWithNorm does).
+	 * Short-circuits of FuzzySet.processSetsWithNorm for T-Norms are not used, so
+	 * the result may keep more points (membership function is the same).
+	 *
+	 * @param dest destination set
+	 * @param aSet compact set
+	 * @param bSet regular set
+	 * @param norm norm operation
+	 */
+	public static void processSetsWithNorm(FuzzySet dest, CompactFuzzySet aSet, FuzzySet bSet, Norm norm) {
+		if (aSet.cx.length == 0 || bSet.size == 0)
+			return;
+		_processSetsWithNorm(dest, aSet, null, bSet.xs, bSet.ys, bSet.size, bSet.min_val, bSet.max_val, norm);
+	}
+
+	/**
+	 * Processes two compact sets with a norm (see
+	 * processSetsWithNorm(FuzzySet, CompactFuzzySet, FuzzySet, Norm)).
+	 *
+	 * @param dest destination set
+	 * @param aSet first compact set
+	 * @param bSet second compact set
+	 * @param norm norm operation
+	 */
+	public static void processSetsWithNorm(FuzzySet dest, CompactFuzzySet aSet, CompactFuzzySet bSet, Norm norm) {
+		int nb = bSet.cx.length;
+		if (aSet.cx.length == 0 || nb == 0)
+			return;
+		_processSetsWithNorm(dest, aSet, bSet, null, null, nb, bSet.cx[0], bSet.cx[nb - 1], norm);
+	}
+
+	// Prepares destination set and merges the sets. The second set is compact
+	// (b != null) or given by arrays of a regular set.
+	private static void _processSetsWithNorm(FuzzySet dest, CompactFuzzySet a, CompactFuzzySet b, double[] bx,
+			double[] by, int nb, double bMin, double bMax, Norm norm) {
+		int na = a.cx.length;
+		int bound = FuzzySet.getMergeBound(na, nb);
+
+		// clear destination set (fails for a frozen set)
+		dest.ClearSet();
+		if (dest.xs.length < bound) {
+			dest.xs = new double[bound + FuzzySet.DEFAULT_ARRAY_EXTENSION];
+			dest.ys = new double[bound + FuzzySet.DEFAULT_ARRAY_EXTENSION];
+		}
+
+		int n = _mergeWithNorm(a, b, bx, by, nb, norm, dest.xs, dest.ys);
+
+		int max = 0;
+		for (int i = 1; i < n; i++) {
+			if (dest.ys[max] < dest.ys[i])
+				max = i;
+		}
+		dest.max_membership.assign(dest.xs[max], dest.ys[max]);
+
+		double aMin = a.cx[0], aMax = a.cx[na - 1];
+		dest.size = n;
+		dest.min_val = aMin < bMin ? aMin : bMin;
+		dest.max_val = aMax > bMax ? aMax : bMax;
+		dest._changed();
+	}
+
+	// x value of a point of the second set of the merge
+	private static double _x(CompactFuzzySet b, double[] bx, int i) {
+		return b != null ? b.cx[i] : bx[i];
+	}
+
+	// y value of a point of the second set of the merge
+	private static double _y(CompactFuzzySet b, double[] by, int i) {
+		return b != null ? b.cy[i] / Y_LEVELS : by[i];
+	}
+
+	// Merge kernel of FuzzySet.mergeWithNorm decoding points of the compact set
+	// on the fly. Current segment of each function is kept as begin (xb,yb) and
+	// end (xe,ye) points.
+	private static int _mergeWithNorm(CompactFuzzySet a, CompactFuzzySet b, double[] bx, double[] by, int nb,
+			Norm norm, double[] outX, double[] outY) {
+		float[] ax = a.cx;
+		char[] ay = a.cy;
+		int na = ax.length;
+		double axb, ayb, axe, aye, bxb, byb, bxe, bye;
+		double last_dif, act_dif, o1, o2, cy;
+		int posA, posB, out_counter;
+		boolean A_NotDone, B_NotDone;
+
+		A_NotDone = B_NotDone = true;
+
+		// the first point
+		posA = posB = 0;
+		out_counter = 0;
+		axb = ax[posA];
+		ayb = ay[posA] / Y_LEVELS;
+		bxb = _x(b, bx, posB);
+		byb = _y(b, by, posB);
+		if (axb < bxb) {
+			bxb = axb;
+			if (posA < (na - 1))
+				posA++;
+			else
+				A_NotDone = false;
+		} else {
+			if (axb > bxb) {
+				axb = bxb;
+				if (posB < (nb - 1))
+					posB++;
+				else
+					B_NotDone = false;
+			} else {
+				if (posA < (na - 1))
+					posA++;
+				else
+					A_NotDone = false;
+				if (posB < (nb - 1))
+					posB++;
+				else
+					B_NotDone = false;
+			}
+		}
+		last_dif = act_dif = ayb - byb;
+		outX[out_counter] = axb;
+		outY[out_counter] = norm.calc(ayb, byb);
+		out_counter++;
+
+		// loop through all points in both sets
+		while (A_NotDone || B_NotDone) {
+			axe = ax[posA];
+			aye = ay[posA] / Y_LEVELS;
+			bxe = _x(b, bx, posB);
+			bye = _y(b, by, posB);
+			if (A_NotDone == false)
+				axe = bxe;
+			if (B_NotDone == false)
+				bxe = axe + 1.0;
+			if (axe < bxe) {
+				bye = ((axe - bxb) * (bye - byb) / (bxe - bxb)) + byb;
+				bxe = axe;
+				if (posA < (na - 1))
+					posA++;
+				else
+					A_NotDone = false;
+			} else {
+				if (axe > bxe) {
+					aye = ((bxe - axb) * (aye - ayb) / (axe - axb)) + ayb;
+					axe = bxe;
+					if (posB < (nb - 1))
+						posB++;
+					else
+						B_NotDone = false;
+				} else {
+					if (posA < (na - 1))
+						posA++;
+					else
+						A_NotDone = false;
+					if (posB < (nb - 1))
+						posB++;
+					else
+						B_NotDone = false;
+				}
+			}
+			act_dif = aye - bye;
+			// crossing of membership functions
+			if ((act_dif * last_dif) < 0.0) {
+				o1 = ayb - byb;
+				o2 = bye - aye;
+				cy = ((aye * byb) - (ayb * bye)) / (-1.0 * (o1 + o2));
+				outX[out_counter] = ((axe * o1) + (axb * o2)) / (o1 + o2);
+				outY[out_counter] = norm.calc(cy, cy);
+				out_counter++;
+			}
+			outX[out_counter] = axe;
+			outY[out_counter] = norm.calc(aye, bye);
+			out_counter++;
+			axb = axe;
+			ayb = aye;
+			bxb = bxe;
+			byb = bye;
+			last_dif = act_dif;
+		}
+		return out_counter;
+	}
+
+}
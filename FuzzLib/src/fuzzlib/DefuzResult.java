@@ -0,0 +1,39 @@
+package fuzzlib;
+
+/**
+ * Results of all defuzzyfication methods calculated by one pass through the
+ * description of a fuzzy set (see FuzzySet.DeFuzzyfyAll). The object can be
+ * reused for many sets - it keeps its working arrays.
+ */
+public class DefuzResult {
+	// center of gravity (DefuzMethod.DF_COG)
+	public double cog;
+	// indexed center of gravity (DefuzMethod.DF_ICOG)
+	public double icog;
+	// modified indexed center of gravity (DefuzMethod.DF_MICOG)
+	public double micog;
+	// center of maximum (DefuzMethod.DF_MAX)
+	public double center_of_max;
+	// mean of all x values with maximum membership
+	public double mean_of_max;
+	// x value dividing area under membership function into two equal parts
+	public double bisector;
+	// maximum membership
+	public double height;
+	// alpha used for ICOG and MICOG
+	public double alpha;
+
+	// sums of COG, ICOG and MICOG formulas (4 per method)
+	final double[] sums = new double[12];
+	// area under membership function up to each point (working array)
+	double[] areas = new double[0];
+
+	public DefuzResult() {
+	}
+
+	@Override
+	public String toString() {
+		return "COG=" + cog + ", ICOG=" + icog + ", MICOG=" + micog + ", MAX=" + center_of_max + ", MOM="
+				+ mean_of_max + ", bisector=" + bisector + ", height=" + height + ", alpha=" + alpha;
+	}
+}
@@ -70,7 +70,7 @@ public class FindMaxAandBforMembership implements FindMaxMembership {
 			idxB++;
 
 		// ustal pocz�tkowe punkty A i B
-		poczA.assign(trA.pts[idxA]);
+		poczA.assign(trA.xs[idxA], trA.ys[idxA]);
 		// wylicz x punktu B ze wzoru
 		poczB.x = comp_fun.reverseCalc(membership, poczA.x);
 		// oblicz y punktu B jako wartosc funkcji liniowej opisanej punktami zbioru B
@@ -89,7 +89,7 @@ public class FindMaxAandBforMembership implements FindMaxMembership {
 			if (compositionIsTnorm) {
 				// ustal koncowe punkty zbioru A i B
 				// wez kolejny punkt koncowy zbioru A
-				konA.assign(trA.pts[idxA - 1]);
+				konA.assign(trA.xs[idxA - 1], trA.ys[idxA - 1]);
 				// jesli kolejny punkt <= na granicy przetwarzania to jest to ostatni punkt
 				// obliczen
 				if (konA.x < membership) { // jesli mniejszy - trzeba wyliczyc y
@@ -104,9 +104,9 @@ public class FindMaxAandBforMembership implements FindMaxMembership {
 				konB.x = membership / konA.x; // dwa razy wykonuje to samo dla prod !!! - poniewa� taki sam wz�e
 												// prodacta
 
-				while (konB.x > trB.pts[idxB + 1].x) {
+				while (konB.x > trB.xs[idxB + 1]) {
 					// wez kolejny punkt koncowy zbioru B
-					tmpkonB.assign(trB.pts[idxB + 1]);
+					tmpkonB.assign(trB.xs[idxB + 1], trB.ys[idxB + 1]);
 					// punkt x zbioru B nie przekroczy granicy poniewaz x zbioru A nie przekroczyl
 
 					// wylicz punkt koncowy A ze wzoru
@@ -129,7 +129,7 @@ public class FindMaxAandBforMembership implements FindMaxMembership {
 				// ustal koncowe punkty zbioru A i B
 				// wez kolejny punkt koncowy zbioru A
 
-				konA.assign(trA.pts[idxA + 1]);
+				konA.assign(trA.xs[idxA + 1], trA.ys[idxA + 1]);
 
 				// jesli kolejny punkt <= granicy przetwarzania to jest to ostatni punkt
 				// obliczen
@@ -142,9 +142,9 @@ public class FindMaxAandBforMembership implements FindMaxMembership {
 
 				konB.x = comp_fun.reverseCalc(membership, konA.x);
 
-				while (konB.x < trB.pts[idxB - 1].x) {
+				while (konB.x < trB.xs[idxB - 1]) {
 					// wez kolejny punkt koncowy zbioru B
-					tmpkonB.assign(trB.pts[idxB - 1]);
+					tmpkonB.assign(trB.xs[idxB - 1], trB.ys[idxB - 1]);
 					// punkt x zbioru B nie przekroczy granicy poniewaz x zbioru A nie przekroczyl
 
 					// wylicz punkt koncowy A ze wzoru
@@ -194,16 +194,16 @@ public class FindMaxAandBforMembership implements FindMaxMembership {
 	// Wzory na obliczenie funcji liniowej
 	public double calcLinearFunctionForA(double x, FuzzySet tr, int idx) {
 		double result;
-		result = (x - tr.pts[idx - 1].x) * (tr.pts[idx].y - tr.pts[idx - 1].y);
-		result = result / (tr.pts[idx].x - tr.pts[idx - 1].x) + tr.pts[idx - 1].y;
+		result = (x - tr.xs[idx - 1]) * (tr.ys[idx] - tr.ys[idx - 1]);
+		result = result / (tr.xs[idx] - tr.xs[idx - 1]) + tr.ys[idx - 1];
 		return result;
 
 	}
 
 	public double calcLinearFunctionForB(double x, FuzzySet tr, int idx) {
 		double result;
-		result = (x - tr.pts[idx].x) * (tr.pts[idx + 1].y - tr.pts[idx].y);
-		result = result / (tr.pts[idx + 1].x - tr.pts[idx].x) + tr.pts[idx].y;
+		result = (x - tr.xs[idx]) * (tr.ys[idx + 1] - tr.ys[idx]);
+		result = result / (tr.xs[idx + 1] - tr.xs[idx]) + tr.ys[idx];
 		return result;
 
 	}
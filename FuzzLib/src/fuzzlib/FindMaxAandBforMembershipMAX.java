@@ -19,27 +19,27 @@ public class FindMaxAandBforMembershipMAX implements FindMaxMembership {
 		// 1.Wyznaczyc maxA = max trA w przedziale [0,membership], zapamietac
 		// trA(membership)
 		i = 0;
-		while ((i < trA.size - 1) && trA.pts[i].x < membership) {
-			if (trA.pts[i].y > maxA)
-				maxA = trA.pts[i].y;
+		while ((i < trA.size - 1) && trA.xs[i] < membership) {
+			if (trA.ys[i] > maxA)
+				maxA = trA.ys[i];
 			i++;
 		}
 		if (i == 0)
 			dy = 0;
 		else
-			dy = trA.pts[i].y - trA.pts[i - 1].y;
+			dy = trA.ys[i] - trA.ys[i - 1];
 		if (dy < 0.0)
 			dy *= -1;
-		dx = membership - trA.pts[i].x;
+		dx = membership - trA.xs[i];
 		if (dx < 0.0)
 			dx *= -1;
 		if (dy < minDY || dx < minDX) { // punkt koncowy == ostatniemu
-			mtrA = trA.pts[i].y;
+			mtrA = trA.ys[i];
 		} else {
 			// wyznacz wartosc dla punktu koncowego : ((x-x1)*(y2-y1)/(x2-x1)) + y1;
-			mtrA = (membership - trA.pts[i - 1].x) * (trA.pts[i].y - trA.pts[i - 1].y);
-			mtrA /= (trA.pts[i].x - trA.pts[i - 1].x);
-			mtrA += trA.pts[i - 1].y;
+			mtrA = (membership - trA.xs[i - 1]) * (trA.ys[i] - trA.ys[i - 1]);
+			mtrA /= (trA.xs[i] - trA.xs[i - 1]);
+			mtrA += trA.ys[i - 1];
 		}
 		if (mtrA > maxA)
 			maxA = mtrA;
@@ -47,27 +47,27 @@ public class FindMaxAandBforMembershipMAX implements FindMaxMembership {
 		// 2.Wyznaczyc maxB = max trB w przedziale [0,membership], zapamietac
 		// trB(membership)
 		i = 0;
-		while (i < trB.size - 1 && trB.pts[i].x < membership) {
-			if (trB.pts[i].y > maxB)
-				maxB = trB.pts[i].y;
+		while (i < trB.size - 1 && trB.xs[i] < membership) {
+			if (trB.ys[i] > maxB)
+				maxB = trB.ys[i];
 			i++;
 		}
 		if (i == 0)
 			dy = 0;
 		else
-			dy = trB.pts[i].y - trB.pts[i - 1].y;
+			dy = trB.ys[i] - trB.ys[i - 1];
 		if (dy < 0.0)
 			dy *= -1;
-		dx = membership - trB.pts[i].x;
+		dx = membership - trB.xs[i];
 		if (dx < 0.0)
 			dx *= -1;
 		if (dy < minDY || dx < minDX) { // punkt koncowy == ostatniemu
-			mtrB = trB.pts[i].y;
+			mtrB = trB.ys[i];
 		} else {
 			// wyznacz wartosc dla punktu koncowego : ((x-x1)*(y2-y1)/(x2-x1)) + y1;
-			mtrB = (membership - trB.pts[i - 1].x) * (trB.pts[i].y - trB.pts[i - 1].y);
-			mtrB /= (trB.pts[i].x - trB.pts[i - 1].x);
-			mtrB += trB.pts[i - 1].y;
+			mtrB = (membership - trB.xs[i - 1]) * (trB.ys[i] - trB.ys[i - 1]);
+			mtrB /= (trB.xs[i] - trB.xs[i - 1]);
+			mtrB += trB.ys[i - 1];
 		}
 		if (mtrB > maxB)
 			maxB = mtrB;
@@ -16,43 +16,43 @@ public class FindMaxAandBforMembershipMIN implements FindMaxMembership{
 
 		    //1.Wyznaczyc maxA = max trA w przedziale [membership,1], zapamietac trA(membership)
 		  i=trA.size-1;
-		  while ( i>0 && trA.pts[i].x > membership){
-		    if ( trA.pts[i].y > maxA ) maxA = trA.pts[i].y;
+		  while ( i>0 && trA.xs[i] > membership){
+		    if ( trA.ys[i] > maxA ) maxA = trA.ys[i];
 		    i--;
 		  }
 		  if (i==trA.size-1) dy=0;
-		  else dy = trA.pts[i+1].y - trA.pts[i].y;
+		  else dy = trA.ys[i+1] - trA.ys[i];
 		  if (dy<0.0) dy*=-1;
-		  dx = membership - trA.pts[i].x;
+		  dx = membership - trA.xs[i];
 		  if (dx<0.0) dx*=-1;
 		  if ( dy < minDY || dx < minDX){ //punkt koncowy == ostatniemu
-		    mtrA = trA.pts[i].y;
+		    mtrA = trA.ys[i];
 		  } else {
 		    //wyznacz wartosc dla punktu koncowego : ((x-x1)*(y2-y1)/(x2-x1)) + y1;
-		    mtrA =  (membership - trA.pts[i].x)*(trA.pts[i+1].y - trA.pts[i].y);
-		    mtrA /= (trA.pts[i+1].x - trA.pts[i].x);
-		    mtrA += trA.pts[i].y;
+		    mtrA =  (membership - trA.xs[i])*(trA.ys[i+1] - trA.ys[i]);
+		    mtrA /= (trA.xs[i+1] - trA.xs[i]);
+		    mtrA += trA.ys[i];
 		  }
 		  if (mtrA > maxA) maxA=mtrA;
 
 		    //2.Wyznaczyc maxB = max trB w przedziale [membership,1], zapamietac trB(membership)
 		  i=trB.size-1;
-		  while ( i>0 && trB.pts[i].x > membership){
-		    if ( trB.pts[i].y > maxB ) maxB = trB.pts[i].y;
+		  while ( i>0 && trB.xs[i] > membership){
+		    if ( trB.ys[i] > maxB ) maxB = trB.ys[i];
 		    i--;
 		  }
 		  if (i==trB.size-1) dy=0;
-		  else  dy = trB.pts[i+1].y - trB.pts[i].y;
+		  else  dy = trB.ys[i+1] - trB.ys[i];
 		  if (dy<0.0) dy*=-1;
-		  dx = membership - trB.pts[i].x;
+		  dx = membership - trB.xs[i];
 		  if (dx<0.0) dx*=-1;
 		  if ( dy < minDY || dx < minDX){ //punkt koncowy == ostatniemu
-		    mtrB = trB.pts[i].y;
+		    mtrB = trB.ys[i];
 		  } else {
 		    //wyznacz wartosc dla punktu koncowego : ((x-x1)*(y2-y1)/(x2-x1)) + y1;
-		    mtrB =  (membership - trB.pts[i].x)*(trB.pts[i+1].y - trB.pts[i].y);
-		    mtrB /= (trB.pts[i+1].x - trB.pts[i].x);
-		    mtrB += trB.pts[i].y;
+		    mtrB =  (membership - trB.xs[i])*(trB.ys[i+1] - trB.ys[i]);
+		    mtrB /= (trB.xs[i+1] - trB.xs[i]);
+		    mtrB += trB.ys[i];
 		  }
 		  if (mtrB > maxB) maxB=mtrB;
 
@@ -42,13 +42,13 @@ public class FindMaxAandBforMembershipPR implements FindMaxMembership {
 		idxB = iw.getValue();
 
 		// ustal poczatkowe punkty zbioru A i B
-		poczA.assign(trA.pts[idxA]);
+		poczA.assign(trA.xs[idxA], trA.ys[idxA]);
 		poczB.x = membership / poczA.x; // wylicz x punktu B ze wzoru
 										// xA*xB=membership
 		// oblicz y punktu B jako wartosc funkcji liniowej opisanej punktami
 		// zbioru B
-		poczB.y = (poczB.x - trB.pts[idxB].x) * (trB.pts[idxB + 1].y - trB.pts[idxB].y);
-		poczB.y = poczB.y / (trB.pts[idxB + 1].x - trB.pts[idxB].x) + trB.pts[idxB].y;
+		poczB.y = (poczB.x - trB.xs[idxB]) * (trB.ys[idxB + 1] - trB.ys[idxB]);
+		poczB.y = poczB.y / (trB.xs[idxB + 1] - trB.xs[idxB]) + trB.ys[idxB];
 
 		boolean End = false;
 
@@ -56,13 +56,13 @@ public class FindMaxAandBforMembershipPR implements FindMaxMembership {
 
 			// ustal koncowe punkty zbioru A i B
 			// wez kolejny punkt koncowy zbioru A
-			konA.assign(trA.pts[idxA - 1]);
+			konA.assign(trA.xs[idxA - 1], trA.ys[idxA - 1]);
 			// jesli kolejny punkt <= granicy przetwarzania to jest to ostatni
 			// punkt obliczen
 			if (konA.x < membership) { // jesli mniejszy - trzeba wyliczyc y
 				konA.x = membership;
-				konA.y = (konA.x - trA.pts[idxA - 1].x) * (trA.pts[idxA].y - trA.pts[idxA - 1].y);
-				konA.y = konA.y / (trA.pts[idxA].x - trA.pts[idxA - 1].x) + trA.pts[idxA - 1].y;
+				konA.y = (konA.x - trA.xs[idxA - 1]) * (trA.ys[idxA] - trA.ys[idxA - 1]);
+				konA.y = konA.y / (trA.xs[idxA] - trA.xs[idxA - 1]) + trA.ys[idxA - 1];
 				End = true;
 			} else if (konA.x == membership)
 				End = true; // jesli rowny - nie trzeba liczyc
@@ -76,16 +76,16 @@ public class FindMaxAandBforMembershipPR implements FindMaxMembership {
 			konB.x = membership / konA.x;
 			// jesli konB omija pewne punkty w B to wykonaj
 			// obliczenia dla przedzialow tworzonych przez te punkty
-			while (konB.x > trB.pts[idxB + 1].x) {
+			while (konB.x > trB.xs[idxB + 1]) {
 				// wez kolejny punkt koncowy zbioru B
-				tmpkonB.assign(trB.pts[idxB + 1]);
+				tmpkonB.assign(trB.xs[idxB + 1], trB.ys[idxB + 1]);
 				// punkt x zbioru B nie przekroczy granicy poniewaz x zbioru A
 				// nie przekroczyl
 
 				// wylicz punkt koncowy A ze wzoru xA*xB=membership
 				tmpkonA.x = membership / tmpkonB.x;
-				tmpkonA.y = (tmpkonA.x - trA.pts[idxA - 1].x) * (trA.pts[idxA].y - trA.pts[idxA - 1].y);
-				tmpkonA.y = tmpkonA.y / (trA.pts[idxA].x - trA.pts[idxA - 1].x) + trA.pts[idxA - 1].y;
+				tmpkonA.y = (tmpkonA.x - trA.xs[idxA - 1]) * (trA.ys[idxA] - trA.ys[idxA - 1]);
+				tmpkonA.y = tmpkonA.y / (trA.xs[idxA] - trA.xs[idxA - 1]) + trA.ys[idxA - 1];
 
 				tmp = _FindMaxInRangePR(poczA, tmpkonA, poczB, tmpkonB, membership, tnorm);
 				if (tmp > 1.0)
@@ -103,8 +103,8 @@ public class FindMaxAandBforMembershipPR implements FindMaxMembership {
 			// - wczesniej nie mozna wykonac tych obliczen poniewaz idxB moze
 			// nie wskazywac
 			// wlasciwego zakresu
-			konB.y = (konB.x - trB.pts[idxB].x) * (trB.pts[idxB + 1].y - trB.pts[idxB].y);
-			konB.y = konB.y / (trB.pts[idxB + 1].x - trB.pts[idxB].x) + trB.pts[idxB].y;
+			konB.y = (konB.x - trB.xs[idxB]) * (trB.ys[idxB + 1] - trB.ys[idxB]);
+			konB.y = konB.y / (trB.xs[idxB + 1] - trB.xs[idxB]) + trB.ys[idxB];
 
 			tmp = _FindMaxInRangePR(poczA, konA, poczB, konB, membership, tnorm);
 			if (tmp > 1.0)
@@ -0,0 +1,585 @@
+package fuzzlib;
+
+import java.text.DecimalFormat;
+import java.util.Arrays;
+
+import fuzzlib.negs.Negation;
+import fuzzlib.norms.Norm;
+import fuzzlib.norms.SNorm;
+import fuzzlib.norms.TNorm;
+
+/**
+ * Immutable fuzzy set. Created by {@link FuzzySet#freeze()} from a regular
+ * fuzzy set. Each segment of piecewise-linear description has precomputed
+ * slope and intercept, so membership is calculated without division. Support
+ * and core bounds, area and centroid are calculated once during creation. If
+ * the source set has bucket index enabled, the index is taken from it.
+ *
+ * If the source set has integral index enabled, the index is built together
+ * with a level index: for each band between consecutive membership values of
+ * points it keeps segments crossing the band. ICOG and MICOG defuzzyfication
+ * with any alpha then takes O(log n + k), where k is the number of segments
+ * crossing alpha level (narrow segments are not skipped in this case).
+ *
+ * All methods changing the description throw UnsupportedOperationException.
+ * After safe publication (e.g. creation before worker threads are started) the
+ * object can be shared between threads without copying. Operation objects
+ * (norms, negation) are shared with the source set.
+ */
+public class FrozenFuzzySet extends FuzzySet {
+
+	// slope of i-th segment (between points i and i+1)
+	private final double[] slope;
+	// intercept of i-th segment: y = slope * x + intercept
+	private final double[] intercept;
+
+	// area under membership function
+	private final double area;
+	// center of gravity calculated with default minimum dx
+	private final double centroid;
+	// average membership of description points
+	private final double average;
+
+	// the largest average number of bands crossed by a segment for which level
+	// index is built
+	private static final int MAX_LEVEL_INDEX = 16;
+
+	// distinct memberships of points (ascending), null if there is no level
+	// index
+	private double[] levels;
+	// segments crossing band (levels[b], levels[b+1]] are
+	// band_seg[band_start[b]] .. band_seg[band_start[b+1]-1] (ascending)
+	private int[] band_start, band_seg;
+
+	/**
+	 * Creates frozen copy of a given fuzzy set.
+	 *
+	 * @param fs source fuzzy set
+	 */
+	public FrozenFuzzySet(FuzzySet fs) {
+		super(fs, fs.size);
+
+		int segs = size > 1 ? size - 1 : 0;
+		slope = new double[segs];
+		intercept = new double[segs];
+		double a = 0.0;
+		for (int i = 0; i < segs; i++) {
+			double dx = xs[i + 1] - xs[i];
+			if (dx > 0.0) {
+				slope[i] = (ys[i + 1] - ys[i]) / dx;
+				intercept[i] = ys[i] - slope[i] * xs[i];
+			} else { // vertical segment is never used for calculation
+				slope[i] = 0.0;
+				intercept[i] = ys[i];
+			}
+			a += (ys[i] + ys[i + 1]) * dx / 2.0;
+		}
+		area = a;
+		average = _averageMembership();
+
+		// support and core bounds are calculated now - shared set is never
+		// changed by queries
+		_updateMeta();
+
+		centroid = _deFuzzyfyEx(DefuzMethod.DF_COG, 0.0, def_mindx);
+
+		if (isIntegralIndexEnabled() && size > 1) {
+			_buildIntegralIndex();
+			_buildLevelIndex();
+		}
+	}
+
+	/**
+	 * Creates frozen set with settings of fs sharing description and derived data
+	 * (slopes, area, indexes) with a frozen set of the same shape (see
+	 * FuzzySetRegistry).
+	 *
+	 * @param fs    source fuzzy set
+	 * @param shape frozen set equal in structure to fs
+	 */
+	FrozenFuzzySet(FuzzySet fs, FrozenFuzzySet shape) {
+		super(fs, shape);
+		slope = shape.slope;
+		intercept = shape.intercept;
+		area = shape.area;
+		average = shape.average;
+		// support and core bounds, bucket and integral index
+		_shareDerived(shape);
+
+		if (def_mindx == shape.def_mindx)
+			centroid = shape.centroid;
+		else
+			centroid = _deFuzzyfyEx(DefuzMethod.DF_COG, 0.0, def_mindx);
+
+		if (isIntegralIndexEnabled() && size > 1) {
+			if (shape.isIntegralIndexEnabled()) {
+				levels = shape.levels;
+				band_start = shape.band_start;
+				band_seg = shape.band_seg;
+			} else
+				_buildLevelIndex();
+		}
+	}
+
+	// Builds level index. It is not built if the segments cross too many bands
+	// (e.g. long zigzag descriptions) - ICOG and MICOG fall back to a full pass.
+	private void _buildLevelIndex() {
+		double[] lv = Arrays.copyOf(ys, size);
+		Arrays.sort(lv);
+		int nl = 1, i, b;
+		for (i = 1; i < size; i++) {
+			if (lv[i] != lv[nl - 1])
+				lv[nl++] = lv[i];
+		}
+		if (nl < 2)
+			return;
+		lv = Arrays.copyOf(lv, nl);
+
+		// bands between levels of both ends of each segment
+		int[] lo = new int[size - 1], hi = new int[size - 1];
+		int[] start = new int[nl];
+		long total = 0;
+		for (i = 0; i < size - 1; i++) {
+			int l1 = Arrays.binarySearch(lv, ys[i]), l2 = Arrays.binarySearch(lv, ys[i + 1]);
+			lo[i] = l1 < l2 ? l1 : l2;
+			hi[i] = l1 < l2 ? l2 : l1;
+			total += hi[i] - lo[i];
+			for (b = lo[i]; b < hi[i]; b++)
+				start[b + 1]++;
+			if (total > MAX_LEVEL_INDEX * size)
+				return;
+		}
+		for (b = 1; b < nl; b++)
+			start[b] += start[b - 1];
+		int[] seg = new int[(int) total];
+		int[] pos = Arrays.copyOf(start, nl);
+		for (i = 0; i < size - 1; i++) {
+			for (b = lo[i]; b < hi[i]; b++)
+				seg[pos[b]++] = i;
+		}
+		levels = lv;
+		band_start = start;
+		band_seg = seg;
+	}
+
+	// Indexed center of gravity with level index - parts below alpha are cut off
+	// (modified = false) or the function is lowered by alpha (modified = true)
+	private double _levelCenterOfGravity(double alpha, boolean modified) {
+		int nl = levels.length;
+		double base = modified ? alpha : 0.0;
+		double[] acc = new double[2];
+		if (alpha <= levels[0]) { // the whole description
+			_addPart(0, xs[0], ys[0], size - 1, xs[size - 1], ys[size - 1], base, acc);
+		} else if (alpha <= levels[nl - 1]) {
+			// band (levels[b], levels[b+1]] containing alpha
+			int b = Arrays.binarySearch(levels, alpha);
+			b = b >= 0 ? b - 1 : -b - 2;
+			// parts of the description with membership >= alpha lie between
+			// crossing segments (membership at a crossing is alpha)
+			int seg, sseg = 0;
+			double x, sx = xs[0], sy = ys[0];
+			boolean inside = ys[0] >= alpha;
+			for (int k = band_start[b]; k < band_start[b + 1]; k++) {
+				seg = band_seg[k];
+				if (alpha == ys[seg + 1]) // exact end of the segment (no rounding)
+					x = xs[seg + 1];
+				else
+					x = xs[seg] + (xs[seg + 1] - xs[seg]) * (alpha - ys[seg]) / (ys[seg + 1] - ys[seg]);
+				if (inside)
+					_addPart(sseg, sx, sy, seg, x, alpha, base, acc);
+				else {
+					sseg = seg;
+					sx = x;
+					sy = alpha;
+				}
+				inside = !inside;
+			}
+			if (inside) // the last part ends at the last point
+				_addPart(sseg, sx, sy, size - 1, xs[size - 1], ys[size - 1], base, acc);
+		}
+		if (acc[0] != 0.0)
+			return acc[1] / acc[0];
+		return (xs[size - 1] - xs[0]) / 2.0 + xs[0];
+	}
+
+	// Adds integrals of (f(x) - base) and x*(f(x) - base) over [xa, xb] to acc
+	// (xa lies in segment sa, xb lies in segment sb, ya = f(xa), yb = f(xb)).
+	// Partial segments are integrated directly, whole segments between them are
+	// taken from integral index.
+	private void _addPart(int sa, double xa, double ya, int sb, double xb, double yb, double base, double[] acc) {
+		if (sa == sb) {
+			acc[0] += _segmentArea(xa, ya - base, xb, yb - base);
+			acc[1] += _segmentMoment(xa, ya - base, xb, yb - base);
+			return;
+		}
+		double x1 = xs[sa + 1], x2 = xs[sb];
+		acc[0] += _segmentArea(xa, ya - base, x1, ys[sa + 1] - base)
+				+ _segmentArea(x2, ys[sb] - base, xb, yb - base);
+		acc[1] += _segmentMoment(xa, ya - base, x1, ys[sa + 1] - base)
+				+ _segmentMoment(x2, ys[sb] - base, xb, yb - base);
+		if (sb > sa + 1) {
+			double a = _integralTo(sb, x2, false) - _integralTo(sa + 1, x1, false);
+			double m = _integralTo(sb, x2, true) - _integralTo(sa + 1, x1, true);
+			double da = a - base * (x2 - x1);
+			// membership of whole segments is >= base - a difference at the level
+			// of rounding errors means membership equal to base
+			if (da > 1e-12 * a) {
+				acc[0] += da;
+				acc[1] += m - base * (x2 * x2 - x1 * x1) / 2.0;
+			}
+		}
+	}
+
+	/**
+	 * Frozen set is immutable, so it is returned itself.
+	 *
+	 * @return this object
+	 */
+	@Override
+	public FrozenFuzzySet freeze() {
+		return this;
+	}
+
+	/**
+	 * @param n index of segment (between points n and n+1)
+	 * @return slope of n-th segment
+	 */
+	public final double getSegmentSlope(int n) {
+		return slope[n];
+	}
+
+	/**
+	 * @param n index of segment (between points n and n+1)
+	 * @return intercept of n-th segment
+	 */
+	public final double getSegmentIntercept(int n) {
+		return intercept[n];
+	}
+
+	/**
+	 * @return area under membership function (between first and last point)
+	 */
+	@Override
+	public final double getArea() {
+		return area;
+	}
+
+	@Override
+	public final double getAverageMembership() {
+		return average;
+	}
+
+	/**
+	 * @return center of gravity of a set (calculated with default minimum dx)
+	 */
+	public final double getCentroid() {
+		return centroid;
+	}
+
+	@Override
+	public double getMembership(double x, IntWrapper left_idx) {
+		if (size == 0)
+			return 0.0;
+		if (x <= xs[0]) {
+			if (left_idx != null)
+				left_idx.setValue(-1);
+			return ys[0];
+		}
+		if (x >= xs[size - 1]) {
+			if (left_idx != null)
+				left_idx.setValue(size - 1);
+			return ys[size - 1];
+		}
+
+		int left = _findSegment(x);
+		if (left_idx != null)
+			left_idx.setValue(left);
+		// interpolation from the left point - intercept form loses precision for
+		// steep segments far from 0
+		return ys[left] + slope[left] * (x - xs[left]);
+	}
+
+	@Override
+	public double getMembership(double x) {
+		return getMembership(x, null);
+	}
+
+	@Override
+	public double DeFuzzyfyEx(short method, double alpha, double min_dx) {
+		if ((method == DefuzMethod.DF_COG) && (min_dx == def_mindx))
+			return centroid;
+		if (levels != null && (method == DefuzMethod.DF_ICOG || method == DefuzMethod.DF_MICOG))
+			return _levelCenterOfGravity(alpha, method == DefuzMethod.DF_MICOG);
+		// no result cache - shared set is never changed by queries
+		return _deFuzzyfyEx(method, alpha, min_dx);
+	}
+
+	@Override
+	public SPoint getMaxPoint() {
+		return new SPoint(max_membership.x, max_membership.y);
+	}
+
+	@Override
+	public SPoint getMax_membership() {
+		return getMaxPoint();
+	}
+
+	// print format is not thread safe
+	@Override
+	public synchronized String toString() {
+		return super.toString();
+	}
+
+	// print format is created on first use
+	@Override
+	public synchronized DecimalFormat getPrintFormat() {
+		return super.getPrintFormat();
+	}
+
+	private UnsupportedOperationException _frozen() {
+		return new UnsupportedOperationException("Fuzzy set '" + id + "' is frozen");
+	}
+
+	@Override
+	public void enableBucketIndex(int buckets) {
+		throw _frozen();
+	}
+
+	@Override
+	public void disableBucketIndex() {
+		throw _frozen();
+	}
+
+	@Override
+	public void enableIntegralIndex() {
+		throw _frozen();
+	}
+
+	@Override
+	public void disableIntegralIndex() {
+		throw _frozen();
+	}
+
+	@Override
+	public void setPrintFormat(DecimalFormat format) {
+		throw _frozen();
+	}
+
+	@Override
+	public FuzzySet assign(FuzzySet fs) {
+		throw _frozen();
+	}
+
+	@Override
+	public FuzzySet assignPoints(FuzzySet fs) {
+		throw _frozen();
+	}
+
+	@Override
+	public void setPointY(int n, double value) {
+		throw _frozen();
+	}
+
+	@Override
+	public void setId(String _id) {
+		throw _frozen();
+	}
+
+	@Override
+	public void setDescription(String _des) {
+		throw _frozen();
+	}
+
+	@Override
+	public void setTNorm(short type) {
+		throw _frozen();
+	}
+
+	@Override
+	public void setTNorm(TNorm tnorm) {
+		throw _frozen();
+	}
+
+	@Override
+	public void setSNorm(short type) {
+		throw _frozen();
+	}
+
+	@Override
+	public void setSNorm(SNorm snorm) {
+		throw _frozen();
+	}
+
+	@Override
+	public void setNegation(short type) {
+		throw _frozen();
+	}
+
+	@Override
+	public void setNegation(Negation neg) {
+		throw _frozen();
+	}
+
+	@Override
+	public void addPoint(double x, double y) {
+		throw _frozen();
+	}
+
+	@Override
+	public void addPoints(double[] px, double[] py, int n) {
+		throw _frozen();
+	}
+
+	@Override
+	public void addPoints(double[] px, double[] py) {
+		throw _frozen();
+	}
+
+	@Override
+	public void normalize() {
+		throw _frozen();
+	}
+
+	@Override
+	public void softenByAverage(int numOfPoints) {
+		throw _frozen();
+	}
+
+	@Override
+	public void softenByAverage(double range) {
+		throw _frozen();
+	}
+
+	@Override
+	public void smoothBox(int radius) {
+		throw _frozen();
+	}
+
+	@Override
+	public void smoothTriangular(int radius) {
+		throw _frozen();
+	}
+
+	@Override
+	public void smoothGaussian(double sigma) {
+		throw _frozen();
+	}
+
+	@Override
+	public void resampleUniform(int points) {
+		throw _frozen();
+	}
+
+	@Override
+	public void divideMemberships(double divisor) {
+		throw _frozen();
+	}
+
+	@Override
+	public void scaleMembership(double scale_factor) {
+		throw _frozen();
+	}
+
+	@Override
+	public void scaleDomain(double scale_factor) {
+		throw _frozen();
+	}
+
+	@Override
+	public void SubtractMinimum() {
+		throw _frozen();
+	}
+
+	@Override
+	public void cutMembership(double level) {
+		throw _frozen();
+	}
+
+	@Override
+	public void openLeftSlope() {
+		throw _frozen();
+	}
+
+	@Override
+	public void openRightSlope() {
+		throw _frozen();
+	}
+
+	@Override
+	public void ProcessSetWithTruthFunction(FuzzySet truthfun) {
+		throw _frozen();
+	}
+
+	@Override
+	public void ProcessSetWithTruthFunction(FuzzySet truthfun, FuzzySet conclusion) {
+		throw _frozen();
+	}
+
+	@Override
+	public void IncreasePrecision(int times, double smallestXInterval) {
+		throw _frozen();
+	}
+
+	@Override
+	public void IncreaseYPrecision(double maxdy, double mindx) {
+		throw _frozen();
+	}
+
+	@Override
+	public void IncreaseXPrecision(double mindx) {
+		throw _frozen();
+	}
+
+	@Override
+	public void PackFlatSections() {
+		throw _frozen();
+	}
+
+	@Override
+	public void retessellate(double maxError) {
+		throw _frozen();
+	}
+
+	@Override
+	public void simplify(double maxError, int maxPoints) {
+		throw _frozen();
+	}
+
+	@Override
+	public void toNegation() {
+		throw _frozen();
+	}
+
+	@Override
+	public FuzzySet fuzzyfy(double x) {
+		throw _frozen();
+	}
+
+	@Override
+	public void DeFuzzConf(short method, double alpha, double min_dx) {
+		throw _frozen();
+	}
+
+	@Override
+	public void DeFuzzConf(short method) {
+		throw _frozen();
+	}
+
+	@Override
+	public void DeFuzzConf(short method, double alpha) {
+		throw _frozen();
+	}
+
+	// also covers processSetsWithNorm and truth function calculations with
+	// frozen destination set
+	@Override
+	public void ClearSet() {
+		throw _frozen();
+	}
+
+	@Override
+	public void processSetAndMembershipWithNorm(double level, Norm norm) {
+		throw _frozen();
+	}
+
+}
@@ -1,21 +1,20 @@
 package fuzzlib;
 
 import java.text.DecimalFormat;
-import java.text.DecimalFormatSymbols;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Stack;
 
 import fuzzlib.creators.OperationCreator;
-import fuzzlib.negs.NegZadeh;
 import fuzzlib.negs.Negation;
 import fuzzlib.norms.Norm;
 import fuzzlib.norms.NullNormForA;
-import fuzzlib.norms.SNMax;
 import fuzzlib.norms.SNorm;
-import fuzzlib.norms.TNMin;
 import fuzzlib.norms.TNorm;
+import fuzzlib.shapes.SHGaussian;
+import fuzzlib.shapes.SHGaussian2;
 
 /**
  * Class represents a fuzzy set. Based on piecewise-linear description of
@@ -33,12 +32,21 @@ public class FuzzySet {
 	public static final int DEFAULT_ARRAY_MAX_SIZE = 32;
 	public static final int DEFAULT_ARRAY_EXTENSION = 64;
 
-	// array of points - piecewise-linear function
-	protected SPoint[] pts;
+	// points of piecewise-linear function stored as two parallel arrays
+	// (struct of arrays) - x values (ascending) and y values (membership)
+	protected double[] xs;
+	protected double[] ys;
 
 	// number of description points
 	protected int size;
 
+	// arrays of points may be shared with other sets (copy-on-write) - they have
+	// to be copied by _own() before a change
+	private boolean shared_points;
+	// arrays owned by this set, kept while arrays of points are shared (reused
+	// by the next copy)
+	private double[] spare_xs, spare_ys;
+
 	// t-norm operation
 	protected TNorm tnorm;
 	// s-norm operation
@@ -65,13 +73,57 @@ public class FuzzySet {
 	protected double def_alpha;
 	// default minimum dx parameter
 	protected double def_mindx;
-	// format of floating point values in printing
+	// defaults of the set (shared operations, print format pattern)
+	protected FuzzySetContext context;
+	// format of floating point values in printing (created from the context on
+	// first use)
 	private DecimalFormat format;
 
+	// optional uniform bucket index over [first x, last x] of the description:
+	// for each bucket index of a segment containing bucket's left bound (null if
+	// disabled or the description has no segment). Built by methods changing the
+	// set, never by lookups.
+	private int[] bucket_idx;
+	// number of buckets of the index: 0 - no index, < 0 - number of points
+	private int bucket_num;
+	// number of buckets per unit of x
+	private double bucket_scale;
+
+	// optional prefix integrals of the description: int_area[i] (int_moment[i])
+	// is the integral of f(x) (x*f(x)) from the first point to i-th point
+	// (null if not built yet or invalidated by a change of the set)
+	private double[] int_area, int_moment;
+	private boolean integral_enabled;
+
+	// working array of smoothing and resampling (reused by subsequent calls)
+	private double[] tmp_ys;
+	// working arrays of simplify and of processing many sets with a norm (for
+	// the destination set) - created on first use, reused by subsequent calls
+	private Work work;
+
+	// bounds of support (membership > 0) and core (membership >= 1), valid if
+	// meta_valid is set - recalculated on demand after a change of the set
+	private double supp_min, supp_max, core_min, core_max;
+	// core is one interval (all points between its bounds have membership >= 1)
+	private boolean core_whole;
+	private boolean meta_valid;
+
+	// number of changes of the set (incremented by _changed)
+	private long version;
+
+	/**
+	 * @return defaults of the set
+	 */
+	public FuzzySetContext getContext() {
+		return context;
+	}
+
 	/**
 	 * @return print format
 	 */
 	public DecimalFormat getPrintFormat() {
+		if (format == null)
+			format = context.newPrintFormat();
 		return format;
 	}
 
@@ -85,19 +137,20 @@ public class FuzzySet {
 	}
 
 	/**
-	 * Creates array of SPoint objects
+	 * Creates arrays of x and y values of description points. Previous content is
+	 * lost.
 	 * 
-	 * @param size size of array
+	 * @param size size of arrays
 	 */
 	private void _constructArray(int size) {
-		pts = new SPoint[size];
-		for (int i = 0; i < pts.length; i++) {
-			pts[i] = new SPoint();
-		}
+		xs = new double[size];
+		ys = new double[size];
+		shared_points = false;
 	}
 
 	/**
-	 * Extends static array of SPoint objects by a given value
+	 * Extends arrays of x and y values by a given value. Valid points are
+	 * preserved.
 	 * 
 	 * @param byValue
 	 */
@@ -106,19 +159,53 @@ public class FuzzySet {
 		if (byValue <= 0)
 			byValue = DEFAULT_ARRAY_EXTENSION;
 
-		SPoint[] new_pts = new SPoint[pts.length + byValue];
+		// move data to new arrays
+		xs = Arrays.copyOf(xs, xs.length + byValue);
+		ys = Arrays.copyOf(ys, ys.length + byValue);
+		shared_points = false;
+	}
 
-		// move data to new array
-		for (int i = 0; i < size; i++) {
-			new_pts[i] = pts[i];
+	/**
+	 * Makes arrays of points private to this set. Has to be called before the
+	 * arrays are changed in place - arrays shared with other sets (see copy
+	 * constructor and assign) are copied first.
+	 */
+	protected final void _own() {
+		if (!shared_points)
+			return;
+		int cap = xs.length;
+		double[] nx = spare_xs, ny = spare_ys;
+		if (nx == null || nx.length < cap) {
+			nx = new double[cap];
+			ny = new double[cap];
 		}
-		// create new objects in remaining positions
-		for (int i = size; i < new_pts.length; i++) {
-			new_pts[i] = new SPoint();
+		System.arraycopy(xs, 0, nx, 0, size);
+		System.arraycopy(ys, 0, ny, 0, size);
+		xs = nx;
+		ys = ny;
+		spare_xs = spare_ys = null;
+		shared_points = false;
+	}
+
+	// Shares arrays of points of fs (copy-on-write). Own arrays are kept for the
+	// next copy. Frozen sets never change their arrays, so they are not marked.
+	private void _sharePoints(FuzzySet fs) {
+		if (!shared_points) {
+			spare_xs = xs;
+			spare_ys = ys;
 		}
-		// set new array as actual
-		pts = new_pts;
+		xs = fs.xs;
+		ys = fs.ys;
+		shared_points = true;
+		if (!(fs instanceof FrozenFuzzySet))
+			fs.shared_points = true;
+	}
 
+	/**
+	 * @return capacity of arrays of description points
+	 */
+	protected final int capacity() {
+		return xs.length;
 	}
 
 	/**
@@ -128,61 +215,64 @@ public class FuzzySet {
 	 * @param _des fuzzy set description
 	 */
 	public FuzzySet(String _id, String _des) {
-		id = _id;
-		des = _des;
-		max_val = 0.0;
-		max_membership = new SPoint(0, -1);
-		// TODO: Co z tym min i max ? nie powinny być standardowo na 0 ??
-		min_val = 1000000;
-		max_val = -1000000;
-		tnorm = new TNMin();
-		snorm = new SNMax();
-		neg = new NegZadeh();
-		_constructArray(DEFAULT_ARRAY_MAX_SIZE);
-		size = 0;
-		def_defuz = DefuzMethod.DF_COG;
-		def_alpha = 0.0;
-		def_mindx = 0.000001;
-		DecimalFormatSymbols otherSymbols = new DecimalFormatSymbols();
-		otherSymbols.setDecimalSeparator('.');
-		format = new DecimalFormat("#.##", otherSymbols);
+		this(DEFAULT_ARRAY_MAX_SIZE, _id, _des, FuzzySetContext.DEFAULT);
 	}
 
 	/**
 	 * Default constructor setting default values.
 	 */
 	public FuzzySet() {
-		this("", "");
+		this(DEFAULT_ARRAY_MAX_SIZE, "", "", FuzzySetContext.DEFAULT);
 	}
 
 	/**
-	 * Constructor creating an empty set with given maximum size of array of points.
-	 * Other parameters default.
+	 * Constructor creating an empty set with given maximum size of array of points
+	 * and defaults taken from a context. Operations of the context are shared, not
+	 * copied.
 	 * 
 	 * @param max_size initial size for array of points
 	 * @param _id      fuzzy set identifier
 	 * @param _des     fuzzy set description
+	 * @param context  defaults of the set
 	 */
-	public FuzzySet(int max_size, String _id, String _des) {
+	public FuzzySet(int max_size, String _id, String _des, FuzzySetContext context) {
 		id = _id;
 		des = _des;
-		max_val = 0.0;
 		max_membership.x = 0.0;
 		max_membership.y = -1.0;
 		// TODO: Co z tym min i max ? nie powinny być standardowo na 0 ??
 		min_val = 1000000;
 		max_val = -1000000;
-		tnorm = new TNMin();
-		snorm = new SNMax();
-		neg = new NegZadeh();
+		this.context = context;
+		tnorm = context.getTNorm();
+		snorm = context.getSNorm();
+		neg = context.getNegation();
 		_constructArray(max_size);
 		size = 0;
-		def_defuz = DefuzMethod.DF_COG;
-		def_alpha = 0.0;
-		def_mindx = 0.000001;
-		DecimalFormatSymbols otherSymbols = new DecimalFormatSymbols();
-		otherSymbols.setDecimalSeparator('.');
-		format = new DecimalFormat("#.##", otherSymbols);
+		def_defuz = context.getDefuzzyficationMethod();
+		def_alpha = context.getDefuzzyficationAlpha();
+		def_mindx = context.getDefuzzyficationMinDx();
+	}
+
+	/**
+	 * Constructor creating an empty set with defaults taken from a context.
+	 * 
+	 * @param context defaults of the set
+	 */
+	public FuzzySet(FuzzySetContext context) {
+		this(DEFAULT_ARRAY_MAX_SIZE, "", "", context);
+	}
+
+	/**
+	 * Constructor creating an empty set with given maximum size of array of points.
+	 * Other parameters default.
+	 * 
+	 * @param max_size initial size for array of points
+	 * @param _id      fuzzy set identifier
+	 * @param _des     fuzzy set description
+	 */
+	public FuzzySet(int max_size, String _id, String _des) {
+		this(max_size, _id, _des, FuzzySetContext.DEFAULT);
 	}
 
 	/**
@@ -196,7 +286,8 @@ public class FuzzySet {
 	}
 
 	/**
-	 * Copy constructor.
+	 * Copy constructor. Points are not copied - arrays of points are shared with
+	 * the source set until one of the sets is changed (copy-on-write).
 	 * 
 	 * @param fs source fuzzy set
 	 */
@@ -213,33 +304,106 @@ public class FuzzySet {
 		def_alpha = fs.def_alpha;
 		def_mindx = fs.def_mindx;
 
-		_constructArray(fs.pts.length);
+		_sharePoints(fs);
 
-		for (int i = 0; i < size; i++) {
-			pts[i].x = fs.pts[i].x;
-			pts[i].y = fs.pts[i].y;
-		}
+		_copyOperations(fs);
+		format = fs.format == null ? null : (DecimalFormat) fs.format.clone();
+		bucket_num = fs.bucket_num;
+		bucket_idx = fs.bucket_idx;
+		bucket_scale = fs.bucket_scale;
+		integral_enabled = fs.integral_enabled;
+	}
+
+	/**
+	 * Copy constructor with given capacity of arrays of points. Operation objects
+	 * (norms, negation) are shared with the source set instead of being
+	 * re-created, print format is cloned.
+	 * 
+	 * @param fs       source fuzzy set
+	 * @param capacity size of arrays of points (at least size of source set)
+	 */
+	protected FuzzySet(FuzzySet fs, int capacity) {
+		id = fs.id;
+		des = fs.des;
+
+		size = fs.size;
+
+		min_val = fs.min_val;
+		max_val = fs.max_val;
+		max_membership.assign(fs.max_membership);
+		def_defuz = fs.def_defuz;
+		def_alpha = fs.def_alpha;
+		def_mindx = fs.def_mindx;
+
+		_constructArray(capacity < size ? size : capacity);
+
+		System.arraycopy(fs.xs, 0, xs, 0, size);
+		System.arraycopy(fs.ys, 0, ys, 0, size);
+
+		context = fs.context;
+		tnorm = fs.tnorm;
+		snorm = fs.snorm;
+		neg = fs.neg;
+		format = fs.format == null ? null : (DecimalFormat) fs.format.clone();
+		bucket_num = fs.bucket_num;
+		bucket_idx = fs.bucket_idx;
+		bucket_scale = fs.bucket_scale;
+		integral_enabled = fs.integral_enabled;
+	}
+
+	/**
+	 * Creates a set with settings of fs (name, description, operations,
+	 * defuzzyfication parameters, indexes) and description of shape. Arrays of
+	 * points are shared with shape, so neither set may be changed afterwards.
+	 * 
+	 * @param fs    source of settings
+	 * @param shape source of description (equal in structure to fs)
+	 */
+	protected FuzzySet(FuzzySet fs, FuzzySet shape) {
+		id = fs.id;
+		des = fs.des;
+
+		size = shape.size;
+		xs = shape.xs;
+		ys = shape.ys;
+
+		min_val = shape.min_val;
+		max_val = shape.max_val;
+		max_membership.assign(shape.max_membership);
+		def_defuz = fs.def_defuz;
+		def_alpha = fs.def_alpha;
+		def_mindx = fs.def_mindx;
 
-		tnorm = null;
-		snorm = null;
-		neg = null;
+		context = fs.context;
+		tnorm = fs.tnorm;
+		snorm = fs.snorm;
+		neg = fs.neg;
+		format = fs.format == null ? null : (DecimalFormat) fs.format.clone();
+		bucket_num = fs.bucket_num;
+		integral_enabled = fs.integral_enabled;
+	}
 
-		setTNorm(fs.tnorm.getType());
-		setSNorm(fs.snorm.getType());
-		setNegation(fs.neg.getType());
-		setPrintFormat(fs.getPrintFormat());
+	// Copies context and operations of fs. Operations of the context are shared
+	// (they are never changed), other operations are re-created.
+	private void _copyOperations(FuzzySet fs) {
+		context = fs.context;
+		tnorm = fs.tnorm == context.getTNorm() ? fs.tnorm : OperationCreator.newTNorm(fs.tnorm.getType());
+		snorm = fs.snorm == context.getSNorm() ? fs.snorm : OperationCreator.newSNorm(fs.snorm.getType());
+		neg = fs.neg == context.getNegation() ? fs.neg : OperationCreator.newNegation(fs.neg.getType());
 	}
 
 	/**
 	 * Copies all fuzzy set data given by fs parameter (except name and
-	 * description).
+	 * description). Arrays of points are shared with fs until one of the sets is
+	 * changed (copy-on-write).
 	 * 
 	 * @param fs input FuzzySet
 	 */
 	public FuzzySet assign(FuzzySet fs) {
+		if (fs == this)
+			return this;
 		size = fs.size;
-		if (pts.length < fs.size)
-			_constructArray(fs.size + DEFAULT_ARRAY_EXTENSION);
+		_sharePoints(fs);
 		min_val = fs.min_val;
 		max_val = fs.max_val;
 		max_membership.assign(fs.max_membership);
@@ -247,23 +411,91 @@ public class FuzzySet {
 		def_alpha = fs.def_alpha;
 		def_mindx = fs.def_mindx;
 
-		for (int i = 0; i < size; i++) {
-			pts[i].x = fs.pts[i].x;
-			pts[i].y = fs.pts[i].y;
-		}
+		_copyOperations(fs);
+		format = fs.format == null ? null : (DecimalFormat) fs.format.clone();
 
-		tnorm = null;
-		snorm = null;
-		neg = null;
+		_changed();
+		return this;
+	}
 
-		setTNorm(fs.tnorm.getType());
-		setSNorm(fs.snorm.getType());
-		setNegation(fs.neg.getType());
-		setPrintFormat(fs.getPrintFormat());
+	/**
+	 * Copies description points of fs into own arrays of this set. Unlike assign,
+	 * arrays are not shared, and operations and defaults of this set are kept.
+	 * Meant for sets reused as buffers which are changed right after the copy -
+	 * after a shared copy the set changed first would allocate new arrays.
+	 * 
+	 * @param fs input FuzzySet
+	 * @return this set
+	 */
+	public FuzzySet assignPoints(FuzzySet fs) {
+		if (fs == this)
+			return this;
+		// shared arrays are released (nothing to copy)
+		size = 0;
+		_own();
+		if (xs.length < fs.size)
+			_constructArray(fs.size + DEFAULT_ARRAY_EXTENSION);
+		System.arraycopy(fs.xs, 0, xs, 0, fs.size);
+		System.arraycopy(fs.ys, 0, ys, 0, fs.size);
+		size = fs.size;
+		min_val = fs.min_val;
+		max_val = fs.max_val;
+		max_membership.assign(fs.max_membership);
 
+		_changed();
 		return this;
 	}
 
+	/**
+	 * Creates an immutable copy of this fuzzy set. Frozen set stores precomputed
+	 * slopes and intercepts of description segments and can be shared between
+	 * threads without copying.
+	 * 
+	 * @return frozen copy of this fuzzy set
+	 */
+	public FrozenFuzzySet freeze() {
+		return new FrozenFuzzySet(this);
+	}
+
+	/**
+	 * Calculates hash code of the description of a set (points only - name,
+	 * description and operations are not taken into account). Sets equal in
+	 * structure (see equalsStructure) have the same hash code. The set is mutable,
+	 * so the code changes with the description.
+	 * 
+	 * @return hash code of description points
+	 */
+	public int structureHashCode() {
+		int h = size;
+		for (int i = 0; i < size; i++) {
+			// 0.0 and -0.0 are equal points
+			h = 31 * h + Double.hashCode(xs[i] + 0.0);
+			h = 31 * h + Double.hashCode(ys[i] + 0.0);
+		}
+		return h;
+	}
+
+	/**
+	 * Compares descriptions of two sets. Name, description and operations are not
+	 * compared.
+	 * 
+	 * @param fs other fuzzy set
+	 * @return true if both sets have the same points
+	 */
+	public boolean equalsStructure(FuzzySet fs) {
+		if (fs == this)
+			return true;
+		if (fs == null || fs.size != size)
+			return false;
+		if (fs.xs == xs && fs.ys == ys)
+			return true;
+		for (int i = 0; i < size; i++) {
+			if (!(xs[i] == fs.xs[i] && ys[i] == fs.ys[i]))
+				return false;
+		}
+		return true;
+	}
+
 	/**
 	 * Calculates intersection of this instance of FuzzySet and fs input parameter.
 	 * 
@@ -286,7 +518,7 @@ public class FuzzySet {
 		tmp.setSNorm(snorm.getType());
 		tmp.setNegation(neg.getType());
 
-		_processSetsWithNorm(tmp, this, fs, tmp.tnorm);
+		_processSetsWithNorm(tmp, this, 0.0, 1.0, fs, 0.0, 1.0, tmp.tnorm);
 
 		return tmp;
 	}
@@ -299,31 +531,33 @@ public class FuzzySet {
 	};
 
 	/**
-	 * Retrieves n-th node of membership function description.
+	 * Retrieves n-th node of membership function description. Points are stored
+	 * as primitive arrays, so the returned object is a copy (compatibility view) -
+	 * modifying it does not change the set.
 	 * 
 	 * @param n index of point (starting with 0)
 	 * @return n-th SPoint object
 	 */
 	public final SPoint getPoint(int n) {
-		return pts[n];
+		return new SPoint(xs[n], ys[n]);
 	}
 
 	/**
-	 * Retrieves first node of membership function description.
+	 * Retrieves first node of membership function description (copy).
 	 * 
 	 * @return first SPoint object
 	 */
 	public final SPoint getFirstPoint() {
-		return pts[0];
+		return new SPoint(xs[0], ys[0]);
 	}
 
 	/**
-	 * Retrieves first node of membership function description.
+	 * Retrieves last node of membership function description (copy).
 	 * 
-	 * @return first SPoint object
+	 * @return last SPoint object
 	 */
 	public final SPoint getLastPoint() {
-		return pts[size - 1];
+		return new SPoint(xs[size - 1], ys[size - 1]);
 	}
 
 	/**
@@ -333,7 +567,7 @@ public class FuzzySet {
 	 * @return x value of n-th SPoint object
 	 */
 	public final double getPointX(int n) {
-		return pts[n].x;
+		return xs[n];
 	}
 
 	/**
@@ -343,7 +577,7 @@ public class FuzzySet {
 	 * @return y value of n-th SPoint object
 	 */
 	public final double getPointY(int n) {
-		return pts[n].y;
+		return ys[n];
 	}
 
 	/**
@@ -353,7 +587,9 @@ public class FuzzySet {
 	 * @param value new y value of n-th SPoint object
 	 */
 	public void setPointY(int n, double value) {
-		pts[n].y = value;
+		_own();
+		ys[n] = value;
+		_changed();
 	}
 
 	/**
@@ -445,63 +681,44 @@ public class FuzzySet {
 	/**
 	 * Adds one point (x,y) to description of membership function. Points are
 	 * appropriately sorted by x (ascending), so there's no need to add them in
-	 * order. However, adding points in x order works faster.
+	 * order. However, adding points in x order works faster. If a point with
+	 * equal x value exists, the greater membership is kept.
 	 * 
 	 * @param x x value
 	 * @param y y value
 	 */
 	public void addPoint(double x, double y) {
-		int i = 0;
-
-		// if array size is too small
-		if (size + 1 > pts.length) {
-			SPoint[] tmp = new SPoint[pts.length + DEFAULT_ARRAY_EXTENSION];
-			for (int j = 0; j < tmp.length; j++) {
-				tmp[j] = new SPoint();
-			}
-
-			while (i < size && x > pts[i].x) {
-				tmp[i].assign(pts[i]);
-				i++;
-			}
-			tmp[i].x = x;
-			tmp[i].y = y;
-			// if index behind last position (no point to compare to)
-			// or new element does not exist in the set
-			if ((i == size) || (x != pts[i].x)) { // then add point
-				while (i < size) { // copy the rest of it's content after new
-									// point
-					tmp[i + 1].assign(pts[i]);
-					i++;
-				}
-				size++;
-				// apply new data
-				pts = tmp;
-			} else { // if new element already exists in the set then
-				if (pts[i].y < y) { // change y to new value if membership is
-									// grater
-					pts[i].y = y;
-				}
+		_own();
+		int i = size;
+
+		// find insert position (after all points with x <= new x) - adding in x
+		// order needs no search
+		if (i > 0 && x < xs[i - 1]) {
+			int lo = 0, mid;
+			while (lo < i) {
+				mid = (lo + i) >>> 1;
+				if (xs[mid] <= x)
+					lo = mid + 1;
+				else
+					i = mid;
 			}
+		}
 
-		} else { // when array size is big enough
-			while (i < size && x > pts[i].x)
-				i++;
-			int position = i;
-			// if index behind last position (no point to compare to)
-			// or new element does not exist in the set
-			if ((i == size) || (x != pts[i].x)) { // then add point
-				i = size - 1; // go to the last element of an array
-				while (i >= position) { // and move the rest of it's content to
-										// right by one place
-					pts[i + 1].x = pts[i].x;
-					pts[i + 1].y = pts[i].y;
-					i--;
-				}
-				size++;
-			}
-			pts[position].x = x;
-			pts[position].y = y;
+		if (i > 0 && x == xs[i - 1]) { // if new element already exists in the set
+			// change y to new value if membership is grater (membership never
+			// decreases, so point of maximum membership stays valid)
+			if (ys[i - 1] < y)
+				ys[i - 1] = y;
+		} else { // otherwise insert new point
+			// if array size is too small - grow geometrically
+			if (size + 1 > xs.length)
+				extendSize(xs.length > DEFAULT_ARRAY_EXTENSION ? xs.length : DEFAULT_ARRAY_EXTENSION);
+			// move the rest of content to right by one place
+			System.arraycopy(xs, i, xs, i + 1, size - i);
+			System.arraycopy(ys, i, ys, i + 1, size - i);
+			xs[i] = x;
+			ys[i] = y;
+			size++;
 		}
 		// apply maximum membership level and left,right margins
 		if (max_membership.y < y) {
@@ -519,6 +736,7 @@ public class FuzzySet {
 			else if (x > max_val)
 				max_val = x;
 		}
+		_changed();
 	}
 
 	/**
@@ -532,6 +750,139 @@ public class FuzzySet {
 		addPoint(p.x, p.y);
 	}
 
+	/**
+	 * Adds many points to description of membership function at once. Input does
+	 * not have to be sorted - it is sorted once (presorted input is detected).
+	 * Points with equal x values (in the input or already in the set) are merged
+	 * into one point with the greater membership, like in addPoint. Minimum,
+	 * maximum and point of maximum membership are calculated in one pass at the
+	 * end.
+	 * 
+	 * @param px x values of new points
+	 * @param py y values of new points
+	 * @param n  number of points to add
+	 */
+	public void addPoints(double[] px, double[] py, int n) {
+		if (n <= 0)
+			return;
+		_own();
+
+		int i, j, k;
+		double[] ax = Arrays.copyOf(px, n);
+		double[] ay = Arrays.copyOf(py, n);
+
+		// sort input if needed
+		for (i = 1; i < n; i++) {
+			if (ax[i] < ax[i - 1]) {
+				_sortPoints(ax, ay, n);
+				break;
+			}
+		}
+
+		// remove duplicates of x - leave greater membership
+		k = 1;
+		for (i = 1; i < n; i++) {
+			if (ax[i] == ax[k - 1]) {
+				if (ay[k - 1] < ay[i])
+					ay[k - 1] = ay[i];
+			} else {
+				ax[k] = ax[i];
+				ay[k] = ay[i];
+				k++;
+			}
+		}
+
+		if (size == 0) { // sorted input becomes the description
+			xs = ax;
+			ys = ay;
+			shared_points = false;
+			size = k;
+		} else { // merge with current description
+			int cap = xs.length;
+			while (cap < size + k)
+				cap = cap > DEFAULT_ARRAY_EXTENSION ? cap * 2 : cap + DEFAULT_ARRAY_EXTENSION;
+			double[] nx = new double[cap];
+			double[] ny = new double[cap];
+			int out = 0;
+			i = j = 0;
+			while (i < size || j < k) {
+				if (j == k || (i < size && xs[i] < ax[j])) {
+					nx[out] = xs[i];
+					ny[out] = ys[i++];
+				} else if (i == size || ax[j] < xs[i]) {
+					nx[out] = ax[j];
+					ny[out] = ay[j++];
+				} else { // equal x values - leave greater membership
+					nx[out] = xs[i];
+					ny[out] = ys[i] < ay[j] ? ay[j] : ys[i];
+					i++;
+					j++;
+				}
+				out++;
+			}
+			xs = nx;
+			ys = ny;
+			shared_points = false;
+			size = out;
+		}
+
+		// one pass for margins and maximum membership
+		min_val = xs[0];
+		max_val = xs[size - 1];
+		max_membership.assign(xs[0], ys[0]);
+		for (i = 1; i < size; i++) {
+			if (max_membership.y < ys[i])
+				max_membership.assign(xs[i], ys[i]);
+		}
+		_changed();
+	}
+
+	/**
+	 * Adds many points to description of membership function at once.
+	 * 
+	 * @param px x values of new points
+	 * @param py y values of new points (the same length as px)
+	 * @see #addPoints(double[], double[], int)
+	 */
+	public void addPoints(double[] px, double[] py) {
+		addPoints(px, py, px.length);
+	}
+
+	// Sorts first n points given by parallel arrays by x (merge sort)
+	private static void _sortPoints(double[] px, double[] py, int n) {
+		double[] tx = new double[n];
+		double[] ty = new double[n];
+		double[] sx = px, sy = py, dx, dy;
+		int width, lo, mid, hi, i, j, k;
+
+		for (width = 1; width < n; width *= 2) {
+			dx = sx == px ? tx : px;
+			dy = sy == py ? ty : py;
+			for (lo = 0; lo < n; lo += 2 * width) {
+				mid = Math.min(lo + width, n);
+				hi = Math.min(lo + 2 * width, n);
+				i = lo;
+				j = mid;
+				for (k = lo; k < hi; k++) {
+					if (i < mid && (j >= hi || sx[i] <= sx[j])) {
+						dx[k] = sx[i];
+						dy[k] = sy[i++];
+					} else {
+						dx[k] = sx[j];
+						dy[k] = sy[j++];
+					}
+				}
+			}
+			sx = dx;
+			sy = dy;
+		}
+		// result has to be in input arrays
+		if (sx != px) {
+			System.arraycopy(sx, 0, px, 0, n);
+			System.arraycopy(sy, 0, py, 0, n);
+		}
+	}
+
 	/**
 	 * Method creates for an object a new description of membership function in
 	 * Gaussian shape. Object remains the same - description changes.
@@ -613,8 +964,8 @@ public class FuzzySet {
 
 		// Second half
 		for (int i = 10; i >= 0; i--) {
-			x = center + (center - pts[i].x);
-			addPoint(x, pts[i].y);
+			x = center + (center - xs[i]);
+			addPoint(x, ys[i]);
 		}
 
 		return this;
@@ -696,6 +1047,46 @@ public class FuzzySet {
 		return this;
 	}
 
+	/**
+	 * Method creates for an object a new description of membership function in
+	 * Gaussian shape with the fewest points keeping absolute error of membership
+	 * within maxError (approximately - see Shape.toFuzzySetAdaptive). Points are
+	 * dense where the function bends and sparse on almost linear parts. The
+	 * description ends where membership falls to maxError. Object remains the
+	 * same - description changes.
+	 * 
+	 * @param center   center of gaussian peek
+	 * @param width    width of function's shape. If the parameter value is <= 0
+	 *                 then it is set to 0.01.
+	 * @param maxError maximum absolute error of membership. If the parameter value
+	 *                 is <= 0 then it is set to 0.001.
+	 * @return reference to this object
+	 */
+	public FuzzySet newGaussianAdaptive(double center, double width, double maxError) {
+		new SHGaussian(center, width).toFuzzySetAdaptive(this, maxError);
+		return this;
+	}
+
+	/**
+	 * Method creates for an object a new description of membership function based
+	 * on Gaussian shape with different width of each side. The fewest points
+	 * keeping absolute error of membership within maxError are used (see
+	 * newGaussianAdaptive). Object remains the same - description changes.
+	 * 
+	 * @param center     center of gaussian peek
+	 * @param leftWidth  left width of function's shape. If the parameter value is
+	 *                   <= 0 then it is set to 0.01.
+	 * @param rightWidth right width of function's shape. If the parameter value is
+	 *                   <= 0 then it is set to 0.01.
+	 * @param maxError   maximum absolute error of membership. If the parameter
+	 *                   value is <= 0 then it is set to 0.001.
+	 * @return reference to this object
+	 */
+	public FuzzySet newGaussianAdaptive(double center, double leftWidth, double rightWidth, double maxError) {
+		new SHGaussian2(center, leftWidth, rightWidth).toFuzzySetAdaptive(this, maxError);
+		return this;
+	}
+
 	/**
 	 * Method creates for an object a new description of membership function in
 	 * triangular shape. Object remains the same - description changes.
@@ -778,21 +1169,22 @@ public class FuzzySet {
 	 * membership values are in range [0,1].
 	 */
 	public void normalize() {
+		_own();
 		double min, max;
 		double range, offset;
 		int i;
 		if (size != 0) {
-			min = pts[0].y;
-			max = pts[0].y;
+			min = ys[0];
+			max = ys[0];
 		} else
 			return;
 
 		// find minimum and maximum membership
 		for (i = 0; i < size; i++) {
-			if (pts[i].y < min)
-				min = pts[i].y;
-			else if (pts[i].y > max)
-				max = pts[i].y;
+			if (ys[i] < min)
+				min = ys[i];
+			else if (ys[i] > max)
+				max = ys[i];
 		}
 
 		// calculate parameters of normalization
@@ -805,10 +1197,11 @@ public class FuzzySet {
 
 		// normalize membership values
 		for (i = 0; i < size; i++) {
-			pts[i].y = (pts[i].y + offset) / range;
-			if (max_membership.y < pts[i].y)
-				max_membership.assign(pts[i]);
+			ys[i] = (ys[i] + offset) / range;
+			if (max_membership.y < ys[i])
+				max_membership.assign(xs[i], ys[i]);
 		}
+		_changed();
 	}
 
 	/**
@@ -821,32 +1214,7 @@ public class FuzzySet {
 	 *                    to the right = 3 points for calculating average).
 	 */
 	public void softenByAverage(int numOfPoints) {
-		if (size < 2)
-			return;
-		if (numOfPoints < 1) {
-			numOfPoints = 1;
-		}
-		SPoint new_pts[] = new SPoint[pts.length];
-		for (int j = 0; j < new_pts.length; j++) {
-			new_pts[j] = new SPoint();
-		}
-		for (int i = 0; i < size; i++) {
-			int start = i - numOfPoints;
-			int stop = i + numOfPoints;
-			if (start < 0)
-				start = 0;
-			if (stop >= size)
-				stop = size - 1;
-			double aver = 0;
-			int num = 0;
-			for (int j = start; j <= stop; j++) {
-				aver += pts[j].y;
-				num++;
-			}
-			new_pts[i].x = pts[i].x;
-			new_pts[i].y = aver / num;
-		}
-		pts = new_pts;
+		smoothBox(numOfPoints);
 	}
 
 	/**
@@ -859,37 +1227,287 @@ public class FuzzySet {
 	 *              range <= 0 then range = 0.01.
 	 */
 	public void softenByAverage(double range) {
+		_own();
 		if (size < 2)
 			return;
 		if (range <= 0) {
 			range = 0.01;
 		}
-		SPoint new_pts[] = new SPoint[pts.length];
-		for (int j = 0; j < new_pts.length; j++) {
-			new_pts[j] = new SPoint();
-		}
+		// x values remain the same - only new membership values are needed
+		double[] new_ys = _workArray(size);
+		// both ends of the range move right, so segments containing them and
+		// the sum of points inside the range are updated incrementally
+		int ca = -1, cb = -1, lo = 0, hi = 0, start;
+		double dbl_srt, dbl_stp, sum = 0.0;
 		for (int i = 0; i < size; i++) {
-			double dbl_srt = pts[i].x - range;
-			double dbl_stp = pts[i].x + range;
-			IntWrapper idx = new IntWrapper();
-			double aver = 0;
-			int num = 2;
-			aver = getMembership(dbl_srt, idx);
-			int start = idx.value;
-			aver += getMembership(dbl_stp, idx);
-			int stop = idx.value;
-			if (start < 0)
-				start = 0;
-			if (pts[start].x < dbl_srt)
+			dbl_srt = xs[i] - range;
+			dbl_stp = xs[i] + range;
+			ca = _advanceCursor(ca, dbl_srt);
+			cb = _advanceCursor(cb, dbl_stp);
+			start = ca < 0 ? 0 : ca;
+			if (xs[start] < dbl_srt)
 				start++;
-			for (int j = start; j <= stop; j++) {
-				aver += pts[j].y;
-				num++;
-			}
-			new_pts[i].x = pts[i].x;
-			new_pts[i].y = aver / num;
+			// sum of points from start to cb (start <= cb + 1)
+			while (hi <= cb)
+				sum += ys[hi++];
+			while (lo < start)
+				sum -= ys[lo++];
+			new_ys[i] = (_valueAt(ca, dbl_srt) + _valueAt(cb, dbl_stp) + sum) / (2 + hi - lo);
+		}
+		System.arraycopy(new_ys, 0, ys, 0, size);
+		_findMaxMembership();
+		_changed();
+	}
+
+	// Returns working array of at least n elements
+	private double[] _workArray(int n) {
+		if (tmp_ys == null || tmp_ys.length < n)
+			tmp_ys = new double[n + DEFAULT_ARRAY_EXTENSION];
+		return tmp_ys;
+	}
+
+	// Working arrays of simplify and processSetsWithNorm - arrays only grow, so
+	// repeated calls on sets of similar size allocate nothing
+	private static final class Work {
+		int[] ia = new int[0], ib = new int[0], ic = new int[0];
+		double[] da = new double[0], db = new double[0], dc = new double[0], dd = new double[0];
+		boolean[] flags = new boolean[0];
+		FuzzySet[] sets = new FuzzySet[0];
+
+		// Makes all arrays at least n elements long (dc - 2n elements)
+		void reserve(int n) {
+			if (ia.length >= n)
+				return;
+			n += DEFAULT_ARRAY_EXTENSION;
+			ia = new int[n];
+			ib = new int[n];
+			ic = new int[n];
+			da = new double[n];
+			db = new double[n];
+			dc = new double[2 * n];
+			dd = new double[n];
+			flags = new boolean[n];
+			sets = new FuzzySet[n];
+		}
+	}
+
+	// Returns working arrays of at least n elements
+	private Work _work(int n) {
+		if (work == null)
+			work = new Work();
+		work.reserve(n);
+		return work;
+	}
+
+	// Moves cursor c (index of a point, -1 before the first point) to the last
+	// point with xs[c] <= x, the same as left index found by getMembership.
+	// Values of x have to be given in ascending order.
+	private int _advanceCursor(int c, double x) {
+		if (x <= xs[0])
+			return -1;
+		if (x >= xs[size - 1])
+			return size - 1;
+		if (c < 0)
+			c = 0;
+		while (xs[c + 1] <= x)
+			c++;
+		return c;
+	}
+
+	// Membership of x lying in the segment starting at point left (-1 before the
+	// first point, size-1 after the last one)
+	private double _valueAt(int left, double x) {
+		if (left < 0)
+			return ys[0];
+		if (left >= size - 1)
+			return ys[size - 1];
+		return (x - xs[left]) * (ys[left + 1] - ys[left]) / (xs[left + 1] - xs[left]) + ys[left];
+	}
+
+	/**
+	 * Smooths the function with moving average of neighbouring points: each
+	 * membership is replaced by the average of memberships of radius points to
+	 * the left, radius points to the right and the point itself (fewer at both
+	 * ends of the description). Takes O(n) regardless of the radius. Points are
+	 * not moved, so for irregular points the set should be resampled first (see
+	 * resampleUniform).
+	 *
+	 * @param radius number of points on each side. If the parameter value is < 1
+	 *               then it is set to 1.
+	 */
+	public void smoothBox(int radius) {
+		if (size < 2)
+			return;
+		if (radius < 1)
+			radius = 1;
+		_boxPass(radius);
+		_findMaxMembership();
+		_changed();
+	}
+
+	/**
+	 * Smooths the function with triangular weights - box smoothing (see smoothBox)
+	 * is applied twice, so weights decrease linearly up to 2*radius points from
+	 * the middle. Takes O(n).
+	 *
+	 * @param radius radius of each box pass. If the parameter value is < 1 then it
+	 *               is set to 1.
+	 */
+	public void smoothTriangular(int radius) {
+		if (size < 2)
+			return;
+		if (radius < 1)
+			radius = 1;
+		_boxPass(radius);
+		_boxPass(radius);
+		_findMaxMembership();
+		_changed();
+	}
+
+	/**
+	 * Smooths the function with approximately Gaussian weights - three box passes
+	 * (see smoothBox) with radius chosen to give the same variance. Takes O(n)
+	 * regardless of sigma.
+	 *
+	 * @param sigma standard deviation of weights (in points). If the parameter
+	 *              value is <= 0 then it is set to 1.
+	 */
+	public void smoothGaussian(double sigma) {
+		if (size < 2)
+			return;
+		if (!(sigma > 0.0))
+			sigma = 1.0;
+		// variance of a box of width w = 2r+1 is (w^2-1)/12, three passes
+		// give 3 times more
+		int radius = (int) Math.round((Math.sqrt(4.0 * sigma * sigma + 1.0) - 1.0) / 2.0);
+		if (radius < 1)
+			radius = 1;
+		_boxPass(radius);
+		_boxPass(radius);
+		_boxPass(radius);
+		_findMaxMembership();
+		_changed();
+	}
+
+	// One pass of moving average with a running sum of the window
+	private void _boxPass(int radius) {
+		_own();
+		double[] new_ys = _workArray(size);
+		double sum = 0.0;
+		int lo = 0, hi = 0, start, stop;
+		for (int i = 0; i < size; i++) {
+			start = i - radius > 0 ? i - radius : 0;
+			stop = i + radius < size ? i + radius : size - 1;
+			while (hi <= stop)
+				sum += ys[hi++];
+			while (lo < start)
+				sum -= ys[lo++];
+			new_ys[i] = sum / (hi - lo);
+		}
+		System.arraycopy(new_ys, 0, ys, 0, size);
+	}
+
+	/**
+	 * Replaces the description with points spread evenly between the first and
+	 * the last point. Memberships of new points are read from the current
+	 * function, so details narrower than the distance of new points (e.g.
+	 * vertical steps) are lost.
+	 *
+	 * @param points number of new points. If the parameter value is < 2 then it is
+	 *               set to 2.
+	 */
+	public void resampleUniform(int points) {
+		_own();
+		if (size < 2 || !(xs[size - 1] > xs[0]))
+			return;
+		if (points < 2)
+			points = 2;
+		double first = xs[0], last = xs[size - 1], step = (last - first) / (points - 1), x;
+		double[] new_ys = _workArray(points);
+		int i, c = -1;
+		for (i = 0; i < points; i++) {
+			x = i < points - 1 ? first + i * step : last;
+			c = _advanceCursor(c, x);
+			new_ys[i] = _valueAt(c, x);
+		}
+		if (xs.length < points)
+			_constructArray(points + DEFAULT_ARRAY_EXTENSION);
+		for (i = 0; i < points - 1; i++)
+			xs[i] = first + i * step;
+		xs[points - 1] = last;
+		System.arraycopy(new_ys, 0, ys, 0, points);
+		size = points;
+		min_val = first;
+		max_val = last;
+		_findMaxMembership();
+		_changed();
+	}
+
+	/**
+	 * @param x x value
+	 * @return slope of membership function at x (of the segment starting at or
+	 *         before x), 0 outside the description
+	 */
+	public double getDerivative(double x) {
+		if (size < 2 || x < xs[0] || x >= xs[size - 1])
+			return 0.0;
+		int left = _findSegment(x);
+		return (ys[left + 1] - ys[left]) / (xs[left + 1] - xs[left]);
+	}
+
+	/**
+	 * Calculates slopes of all segments of the description. Vertical segments get
+	 * infinite slope (0 if both points have the same membership).
+	 *
+	 * @param out array receiving slopes (at least size-1 elements): out[i] is the
+	 *            slope between points i and i+1
+	 * @return number of segments
+	 */
+	public int getSlopes(double[] out) {
+		double dy;
+		for (int i = 0; i < size - 1; i++) {
+			dy = ys[i + 1] - ys[i];
+			out[i] = dy == 0.0 ? 0.0 : dy / (xs[i + 1] - xs[i]);
+		}
+		return size > 1 ? size - 1 : 0;
+	}
+
+	/**
+	 * @return true if memberships never decrease from the first to the last point
+	 */
+	public boolean isNonDecreasing() {
+		for (int i = 1; i < size; i++) {
+			if (ys[i] < ys[i - 1])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if memberships never increase from the first to the last point
+	 */
+	public boolean isNonIncreasing() {
+		for (int i = 1; i < size; i++) {
+			if (ys[i] > ys[i - 1])
+				return false;
 		}
-		pts = new_pts;
+		return true;
+	}
+
+	/**
+	 * Checks if the set is convex in the fuzzy sense - memberships do not decrease
+	 * up to some point and do not increase after it (every alpha-cut is one
+	 * interval).
+	 *
+	 * @return true if the set is unimodal
+	 */
+	public boolean isUnimodal() {
+		int i = 1;
+		while (i < size && ys[i] >= ys[i - 1])
+			i++;
+		while (i < size && ys[i] <= ys[i - 1])
+			i++;
+		return i >= size;
 	}
 
 	/**
@@ -899,11 +1517,13 @@ public class FuzzySet {
 	 * @param divisor divisor of membership values
 	 */
 	public void divideMemberships(double divisor) {
+		_own();
 		// divide membership values
 		for (int i = 0; i < size; i++) {
-			pts[i].y = pts[i].y / divisor;
+			ys[i] = ys[i] / divisor;
 		}
 		max_membership.y = divisor;
+		_changed();
 	}
 
 	/**
@@ -913,12 +1533,14 @@ public class FuzzySet {
 	 * @param scale_factor scale factor of membership values
 	 */
 	public void scaleMembership(double scale_factor) {
+		_own();
 		// scale membership values
 
 		for (int i = 0; i < size; i++) {
-			pts[i].y = pts[i].y * scale_factor;
+			ys[i] = ys[i] * scale_factor;
 		}
 		max_membership.y *= scale_factor;
+		_changed();
 	}
 
 	/**
@@ -928,31 +1550,35 @@ public class FuzzySet {
 	 * @param scale_factor scale factor of domain
 	 */
 	public void scaleDomain(double scale_factor) {
+		_own();
 		for (int i = 0; i < size; i++) {
-			pts[i].x = pts[i].x * scale_factor;
+			xs[i] = xs[i] * scale_factor;
 		}
 		min_val *= scale_factor;
 		max_val *= scale_factor;
+		_changed();
 	}
 
 	/**
 	 * Subtracts minimum value (the lowest y) from all points.
 	 */
 	public void SubtractMinimum() {
+		_own();
 		if (size <= 0)
 			return;
 		double min;
 		// initialize minimum
-		min = pts[0].y;
+		min = ys[0];
 		// find minimum
 		for (int i = 0; i < size; i++) {
-			if (pts[i].y < min)
-				min = pts[i].y;
+			if (ys[i] < min)
+				min = ys[i];
 		}
 		// subtract minimum
 		for (int i = 0; i < size; i++) {
-			pts[i].y -= min;
+			ys[i] -= min;
 		}
+		_changed();
 	}
 
 	/**
@@ -961,26 +1587,28 @@ public class FuzzySet {
 	 * @param level
 	 */
 	public void cutMembership(double level) {
+		_own();
 		// subtract value
 		for (int i = 0; i < size; i++) {
-			if (pts[i].y < level) {
-				pts[i].y = 0.0;
+			if (ys[i] < level) {
+				ys[i] = 0.0;
 			}
 		}
+		_changed();
 	}
 
 	/**
 	 * Returns first point having y grater then given value
 	 * 
 	 * @param value value of y to search
-	 * @return SPoint object fulfilling the search criteria or null in not found
+	 * @return copy of a point fulfilling the search criteria or null in not found
 	 */
 	public SPoint findFirstHigherThan(double value) {
 		if (size <= 0)
 			return null;
 		for (int i = 0; i < size; i++) {
-			if (pts[i].y > value) {
-				return pts[i];
+			if (ys[i] > value) {
+				return new SPoint(xs[i], ys[i]);
 			}
 		}
 		return null;
@@ -990,14 +1618,14 @@ public class FuzzySet {
 	 * Returns last point having y grater then given value
 	 * 
 	 * @param value value of y to search
-	 * @return SPoint object fulfilling the search criteria or null in not found
+	 * @return copy of a point fulfilling the search criteria or null in not found
 	 */
 	public SPoint findLastHigherThan(double value) {
 		if (size <= 0)
 			return null;
 		for (int i = size - 1; i >= 0; i--) {
-			if (pts[i].y > value) {
-				return pts[i];
+			if (ys[i] > value) {
+				return new SPoint(xs[i], ys[i]);
 			}
 		}
 		return null;
@@ -1008,11 +1636,13 @@ public class FuzzySet {
 	 * are set to maximum value)
 	 */
 	public void openLeftSlope() {
+		_own();
 		if (size <= 1) // more than one node is needed for a slope
 			return;
+		_changed();
 		for (int i = 0; i < size; i++) {
-			if (pts[i].y < max_membership.y) {
-				pts[i].y = max_membership.y;
+			if (ys[i] < max_membership.y) {
+				ys[i] = max_membership.y;
 			} else {
 				return; // end if max achieved
 			}
@@ -1024,11 +1654,13 @@ public class FuzzySet {
 	 * node are set to maximum value)
 	 */
 	public void openRightSlope() {
+		_own();
 		if (size <= 1) // more than one node is needed for a slope
 			return;
+		_changed();
 		for (int i = size - 1; i >= 0; i--) {
-			if (pts[i].y < max_membership.y) {
-				pts[i].y = max_membership.y;
+			if (ys[i] < max_membership.y) {
+				ys[i] = max_membership.y;
 			} else {
 				return; // end if max achieved
 			}
@@ -1042,15 +1674,17 @@ public class FuzzySet {
 	 * @param truthfun
 	 */
 	public void ProcessSetWithTruthFunction(FuzzySet truthfun) {
+		_own();
 		max_membership.x = 0.0;
 		max_membership.y = -1.0;
 		// scale membership values with truth function
 		for (int i = 0; i < size; i++) {
-			pts[i].y = truthfun.getMembership(pts[i].y);
-			if (pts[i].y > max_membership.y) {
-				max_membership.assign(pts[i]);
+			ys[i] = truthfun.getMembership(ys[i]);
+			if (ys[i] > max_membership.y) {
+				max_membership.assign(xs[i], ys[i]);
 			}
 		}
+		_changed();
 	}
 
 	/**
@@ -1059,15 +1693,12 @@ public class FuzzySet {
 	 * set.
 	 */
 	public void ProcessSetWithTruthFunction(FuzzySet truthfun, FuzzySet conclusion) {
+		_own();
 		FuzzySet con = conclusion;
 		FuzzySet tf = truthfun;
 		// allocate new memory if not enough
-		if (pts.length < con.size) {
-			pts = null;
-			// ZMIANA
-			// pts = new SPoint[con.pts.length];
-			_constructArray(con.pts.length);
-			// KONIEC ZMIANY
+		if (xs.length < con.size) {
+			_constructArray(con.xs.length);
 		}
 
 		size = con.size;
@@ -1078,12 +1709,13 @@ public class FuzzySet {
 
 		// scale conclusion membership values with truth function
 		for (int i = 0; i < size; i++) {
-			pts[i].x = con.pts[i].x;
-			pts[i].y = tf.getMembership(con.pts[i].y);
-			if (pts[i].y > max_membership.y) {
-				max_membership.assign(pts[i]);
+			xs[i] = con.xs[i];
+			ys[i] = tf.getMembership(con.ys[i]);
+			if (ys[i] > max_membership.y) {
+				max_membership.assign(xs[i], ys[i]);
 			}
 		}
+		_changed();
 	}
 
 	/**
@@ -1113,15 +1745,15 @@ public class FuzzySet {
 		// tmp_set = *this;
 
 		for (i = 0; i < (size - 1); i++) {
-			if (pts[i + 1].y != pts[i].y) { // leave flat intervals
-				width = pts[i + 1].x - pts[i].x;
+			if (ys[i + 1] != ys[i]) { // leave flat intervals
+				width = xs[i + 1] - xs[i];
 				tmp_times = times;
 				step = width / tmp_times;
 				while ((tmp_times > 0) && (step < smallestXInterval)) {
 					tmp_times--;
 				}
 				for (j = 1; j < tmp_times; j++) {
-					x = pts[i].x + step * j;
+					x = xs[i] + step * j;
 					tmp_set.addPoint(x, getMembership(x));
 					values_inserted++;
 				}
@@ -1144,6 +1776,7 @@ public class FuzzySet {
 	 * @param mindx constraint - the smallest difference between nodes in x domain
 	 */
 	public void IncreaseYPrecision(double maxdy, double mindx) {
+		_own();
 		if (size < 2)
 			return;
 		if (maxdy <= 0.0)
@@ -1156,46 +1789,48 @@ public class FuzzySet {
 		int i;
 
 		// add first point
-		tmpdes.add(new SPoint(pts[0].x, pts[0].y));
+		tmpdes.add(new SPoint(xs[0], ys[0]));
 
 		// 1.Divide each segment to adequate number of parts (to make dy <=
 		// mindy)
 		for (i = 0; i < (size - 1); i++) {
 			// calculate how many times segment should be divided
-			dy = Math.abs(pts[i + 1].y - pts[i].y);
+			dy = Math.abs(ys[i + 1] - ys[i]);
 			if (dy > maxdy) {
 				divider = Math.ceil(dy / maxdy);
-				dx = (pts[i + 1].x - pts[i].x) / divider;
+				dx = (xs[i + 1] - xs[i]) / divider;
 				if (dx < mindx)
 					dx = mindx;
-				x = pts[i].x;
-				while ((x += dx) < pts[i + 1].x) {
+				x = xs[i];
+				while ((x += dx) < xs[i + 1]) {
 
 					tmpdes.add(new SPoint(x, getMembership(x)));
 				}
 			}
-			tmpdes.add(new SPoint(pts[i + 1].x, pts[i + 1].y));
+			tmpdes.add(new SPoint(xs[i + 1], ys[i + 1]));
 		}
 
 		// 2.Allocate memory if needed
 		size = tmpdes.size();
-		if (size > pts.length) {
-			if (pts.length > 0)
-				pts = null;
-			pts = new SPoint[size + DEFAULT_ARRAY_EXTENSION];
+		if (size > xs.length) {
+			_constructArray(size + DEFAULT_ARRAY_EXTENSION);
 		}
 
 		// 3.Copy points
 		ListIterator<SPoint> it = tmpdes.listIterator();
 		i = 0;
 		while (it.hasNext()) {
-			pts[i] = it.next();
+			SPoint p = it.next();
+			xs[i] = p.x;
+			ys[i] = p.y;
 			i++;
 		}
+		_changed();
 
 	}
 
 	public void IncreaseXPrecision(double mindx) {
+		_own();
 		if (size < 2)
 			return;
 		if (mindx <= 0.0)
@@ -1206,39 +1841,40 @@ public class FuzzySet {
 		int i;
 
 		// add first point
-		tmpdes.add(new SPoint(pts[0].x, pts[0].y));
+		tmpdes.add(new SPoint(xs[0], ys[0]));
 
 		// 1.Divide each segment to adequate number of parts (to make dx <=
 		// mindx)
 		for (i = 0; i < (size - 1); i++) {
 			// calculate how many times segment should be divided
-			dx = Math.abs(pts[i + 1].x - pts[i].x);
+			dx = Math.abs(xs[i + 1] - xs[i]);
 			if (dx > mindx) {
 				divider = Math.ceil(dx / mindx);
 				dx /= divider;
-				x = pts[i].x;
-				while ((x += dx) < pts[i + 1].x) {
+				x = xs[i];
+				while ((x += dx) < xs[i + 1]) {
 					tmpdes.add(new SPoint(x, getMembership(x)));
 				}
 			}
-			tmpdes.add(new SPoint(pts[i + 1].x, pts[i + 1].y));
+			tmpdes.add(new SPoint(xs[i + 1], ys[i + 1]));
 		}
 
 		// 2.Allocate memory if needed
 		size = tmpdes.size();
-		if (size > pts.length) {
-			if (pts.length > 0)
-				pts = null;
-			pts = new SPoint[size + DEFAULT_ARRAY_EXTENSION];
+		if (size > xs.length) {
+			_constructArray(size + DEFAULT_ARRAY_EXTENSION);
 		}
 
 		// 3.Copy points
 		ListIterator<SPoint> it = tmpdes.listIterator();
 		i = 0;
 		while (it.hasNext()) {
-			pts[i] = it.next();
+			SPoint p = it.next();
+			xs[i] = p.x;
+			ys[i] = p.y;
 			i++;
 		}
+		_changed();
 	}
 
 	/*
@@ -1247,57 +1883,243 @@ public class FuzzySet {
 	 * SNorm.
 	 */
 	public void PackFlatSections() {
+		_own();
 		if (size < 3)
 			return;
 		int i, valid_pos = 1;
 
-		double last_y = pts[0].y;
+		double last_y = ys[0];
 
 		int new_size = size;
 
 		for (i = 1; i < size - 1; i++) { // czy tu nie sprawdzi poza zakresem
-			if (last_y == pts[i].y && last_y == pts[i + 1].y) {
+			if (last_y == ys[i] && last_y == ys[i + 1]) {
 				new_size--;
 			} else {
 				valid_pos++;
 			}
-			last_y = pts[i].y;
-			pts[valid_pos].assign(pts[i + 1]);
-			// pts[valid_pos].x = pts[i+1].x;
-			// pts[valid_pos].y = pts[i+1].y;
+			last_y = ys[i];
+			xs[valid_pos] = xs[i + 1];
+			ys[valid_pos] = ys[i + 1];
 		}
 
 		// copy the last point
-		pts[valid_pos].assign(pts[i]);
-		// pts[valid_pos].x = pts[i].x;
-		// pts[valid_pos].y = pts[i].y;
+		xs[valid_pos] = xs[i];
+		ys[valid_pos] = ys[i];
 
 		size = new_size;
+		_changed();
+	}
+
+	/**
+	 * Re-tessellates the description - removes points which are not needed to keep
+	 * absolute error of membership within maxError. Each new segment is extended
+	 * greedily as far as all removed points lie within maxError from it (the
+	 * range of acceptable slopes is narrowed point by point). First and last point
+	 * are always kept. With maxError = 0 only collinear points are removed.
+	 * 
+	 * @param maxError maximum absolute error of membership. If the parameter value
+	 *                 is < 0 then it is set to 0.
+	 */
+	public void retessellate(double maxError) {
+		_own();
+		if (size < 3)
+			return;
+		if (maxError < 0.0)
+			maxError = 0.0;
+
+		int i, last, out = 1;
+		double x0 = xs[0], y0 = ys[0], dx, slope, lo, hi, tmp;
+
+		for (int anchor = 0; anchor < size - 1; anchor = last) {
+			lo = Double.NEGATIVE_INFINITY;
+			hi = Double.POSITIVE_INFINITY;
+			last = anchor + 1;
+			for (i = anchor + 1; i < size; i++) {
+				dx = xs[i] - x0;
+				if (dx <= 0.0) // vertical segment is kept
+					break;
+				// segment to i-th point has to fit all the points between
+				slope = (ys[i] - y0) / dx;
+				if (slope >= lo && slope <= hi)
+					last = i;
+				tmp = (ys[i] - maxError - y0) / dx;
+				if (tmp > lo)
+					lo = tmp;
+				tmp = (ys[i] + maxError - y0) / dx;
+				if (tmp < hi)
+					hi = tmp;
+				if (lo > hi)
+					break;
+			}
+			// points before "last" are already read, so they can be overwritten
+			xs[out] = x0 = xs[last];
+			ys[out] = y0 = ys[last];
+			out++;
+		}
+		size = out;
+
+		_findMaxMembership();
+		_changed();
+	}
+
+	/**
+	 * Simplifies the description with Douglas-Peucker method - points which are
+	 * not needed to keep absolute error of membership within maxError are removed.
+	 * Unlike retessellate, the most significant points (e.g. peaks) are always
+	 * kept. First and last point are always kept. With maxError = 0 only collinear
+	 * points are removed.
+	 *
+	 * @param maxError maximum absolute error of membership. If the parameter value
+	 *                 is < 0 then it is set to 0.
+	 */
+	public void simplify(double maxError) {
+		simplify(maxError, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Simplifies the description with Douglas-Peucker method limited by number of
+	 * points. Segments are split in order of the largest error, so when the limit
+	 * is reached, the kept points are the most significant ones. First and last
+	 * point are always kept.
+	 *
+	 * @param maxError  maximum absolute error of membership (reached only if the
+	 *                  limit of points allows it). If the parameter value is < 0
+	 *                  then it is set to 0.
+	 * @param maxPoints maximum number of points. If the parameter value is < 2 then
+	 *                  it is set to 2.
+	 */
+	public void simplify(double maxError, int maxPoints) {
+		_own();
+		if (maxError < 0.0)
+			maxError = 0.0;
+		if (maxPoints < 2)
+			maxPoints = 2;
+		if (size < 3)
+			return;
+
+		// segment starting at point i ends at seg_end[i], its worst point is
+		// seg_worst[i] with error seg_err[i]
+		Work w = _work(size);
+		int[] seg_end = w.ia;
+		int[] seg_worst = w.ib;
+		double[] seg_err = w.da;
+		// heap of segment starts (the largest error at the top)
+		int[] heap = w.ic;
+		boolean[] keep = w.flags;
+		int i, s, e, k, hsize, kept = 2;
+
+		Arrays.fill(keep, 0, size, false);
+		keep[0] = keep[size - 1] = true;
+		hsize = _pushSegment(0, size - 1, seg_end, seg_worst, seg_err, heap, 0);
+		while (hsize > 0 && kept < maxPoints) {
+			s = heap[0];
+			if (seg_err[s] <= maxError)
+				break;
+			heap[0] = heap[--hsize];
+			_siftSegment(heap, hsize, 0, seg_err);
+			e = seg_end[s];
+			k = seg_worst[s];
+			keep[k] = true;
+			kept++;
+			hsize = _pushSegment(s, k, seg_end, seg_worst, seg_err, heap, hsize);
+			hsize = _pushSegment(k, e, seg_end, seg_worst, seg_err, heap, hsize);
+		}
+
+		int out = 0;
+		for (i = 0; i < size; i++) {
+			if (keep[i]) {
+				xs[out] = xs[i];
+				ys[out] = ys[i];
+				out++;
+			}
+		}
+		size = out;
+
+		_findMaxMembership();
+		_changed();
+	}
+
+	// Finds the worst point of segment (s,e) and adds the segment to the heap (if
+	// it has points inside), returns new size of the heap
+	private int _pushSegment(int s, int e, int[] seg_end, int[] seg_worst, double[] seg_err, int[] heap,
+			int hsize) {
+		if (e - s < 2)
+			return hsize;
+		double dx = xs[e] - xs[s], err, worst = -1.0;
+		int k, w = s + 1;
+		for (k = s + 1; k < e; k++) {
+			// vertical segment can not replace points inside it
+			err = dx > 0.0 ? Math.abs(ys[s] + (ys[e] - ys[s]) * (xs[k] - xs[s]) / dx - ys[k])
+					: Double.POSITIVE_INFINITY;
+			if (err > worst) {
+				worst = err;
+				w = k;
+			}
+		}
+		seg_end[s] = e;
+		seg_worst[s] = w;
+		seg_err[s] = worst;
+
+		// sift up
+		k = hsize;
+		while (k > 0 && seg_err[heap[(k - 1) / 2]] < worst) {
+			heap[k] = heap[(k - 1) / 2];
+			k = (k - 1) / 2;
+		}
+		heap[k] = s;
+		return hsize + 1;
+	}
+
+	private static void _siftSegment(int[] heap, int hsize, int k, double[] seg_err) {
+		int s = heap[k], c;
+		while ((c = 2 * k + 1) < hsize) {
+			if (c + 1 < hsize && seg_err[heap[c + 1]] > seg_err[heap[c]])
+				c++;
+			if (seg_err[heap[c]] <= seg_err[s])
+				break;
+			heap[k] = heap[c];
+			k = c;
+		}
+		heap[k] = s;
+	}
+
+	// Finds maximum membership point (the first one of equal points)
+	private void _findMaxMembership() {
+		max_membership.assign(xs[0], ys[0]);
+		for (int i = 1; i < size; i++) {
+			if (ys[i] > max_membership.y)
+				max_membership.assign(xs[i], ys[i]);
+		}
 	}
 
 	public void toNegation() {
+		_own();
 		if (size == 0)
 			return;
 		int i;
 
 		// calculate negation of each point describing member function of a set
 		for (i = 0; i < size; i++) {
-			pts[i].y = neg.calc(pts[i].y);
+			ys[i] = neg.calc(ys[i]);
 		}
+		_changed();
 	}
 
 	public FuzzySet fuzzyfy(double x) {
+		_own();
 		if (size == 0)
 			return this;
 		int i;
 
 		// move each point of a set by given x value
 		for (i = 0; i < size; i++) {
-			pts[i].x += x;
+			xs[i] += x;
 		}
 		// DODANO 22.06
 		max_membership.x += x;
 		// KONIEC
+		_changed();
 		return this;
 
 	}
@@ -1307,7 +2129,22 @@ public class FuzzySet {
 		return DeFuzzyfyEx(def_defuz, def_alpha, def_mindx);
 	}
 
+	/**
+	 * Defuzzyfication with given method. Queries do not write into the set, so
+	 * concurrent queries of an unchanged set are safe. Frozen sets keep the
+	 * center of gravity precomputed (see FrozenFuzzySet).
+	 * 
+	 * @param method defuzzyfication method (DefuzMethod)
+	 * @param alpha  alpha parameter of ICOG and MICOG methods
+	 * @param min_dx segments narrower than this value are skipped
+	 * @return defuzzified value
+	 */
 	public double DeFuzzyfyEx(short method, double alpha, double min_dx) {
+		return _deFuzzyfyEx(method, alpha, min_dx);
+	}
+
+	// Defuzzyfication (overridden queries of frozen sets use it too)
+	protected final double _deFuzzyfyEx(short method, double alpha, double min_dx) {
 		switch (method) {
 		case DefuzMethod.DF_COG:
 			return _defuzzCenterOfGravity(min_dx);
@@ -1334,6 +2171,195 @@ public class FuzzySet {
 		return DeFuzzyfyEx(method, alpha, 0.000001);
 	}
 
+	/**
+	 * Calculates results of all defuzzyfication methods with one pass through the
+	 * description: COG, ICOG and MICOG (the same values as DeFuzzyfyEx), center
+	 * of maximum, mean of maxima, bisector of area and height of the set.
+	 *
+	 * @param alpha  alpha parameter of ICOG and MICOG methods
+	 * @param min_dx segments narrower than this value are skipped by COG, ICOG
+	 *               and MICOG
+	 * @param dest   object receiving results (reused, no memory is allocated
+	 *               when its working array is large enough)
+	 * @return destination object
+	 */
+	public DefuzResult DeFuzzyfyAll(double alpha, double min_dx, DefuzResult dest) {
+		dest.alpha = alpha;
+		dest.height = max_membership.y;
+		if (size < 2) {
+			dest.cog = dest.icog = dest.micog = 0.0;
+			dest.center_of_max = dest.mean_of_max = dest.bisector = 0.0;
+			if (size == 1)
+				dest.height = ys[0];
+			return dest;
+		}
+
+		double[] sums = dest.sums;
+		Arrays.fill(sums, 0.0);
+		double[] areas = dest.areas;
+		if (areas.length < size)
+			areas = dest.areas = new double[size + DEFAULT_ARRAY_EXTENSION];
+
+		int i, idxL = 0, idxR = 0, max_cnt = 1;
+		double x1, x2, y1, y2, tx1, tx2, ty1, ty2, max = ys[0];
+		double max_sum = xs[0], flat_len = 0.0, flat_mom = 0.0;
+		areas[0] = 0.0;
+		for (i = 1; i < size; i++) {
+			x1 = xs[i - 1];
+			x2 = xs[i];
+			y1 = ys[i - 1];
+			y2 = ys[i];
+
+			// maximum membership - points and flat segments
+			if (y2 > max) {
+				max = y2;
+				idxL = idxR = i;
+				max_cnt = 1;
+				max_sum = x2;
+				flat_len = flat_mom = 0.0;
+			} else if (y2 == max) {
+				idxR = i;
+				max_cnt++;
+				max_sum += x2;
+				if (y1 == max) {
+					flat_len += x2 - x1;
+					flat_mom += (x2 - x1) * (x1 + x2) / 2.0;
+				}
+			}
+
+			areas[i] = areas[i - 1] + _segmentArea(x1, y1, x2, y2);
+
+			// COG
+			_addCogTerms(x1, y1, x2, y2, min_dx, sums, 0);
+
+			// ICOG - parts below alpha are cut off
+			if (y1 >= alpha || y2 >= alpha) {
+				tx1 = x1;
+				tx2 = x2;
+				ty1 = y1;
+				ty2 = y2;
+				if (ty1 < alpha) {
+					tx1 = tx1 + (tx2 - tx1) * (alpha - ty1) / (ty2 - ty1);
+					ty1 = alpha;
+				}
+				if (ty2 < alpha) {
+					tx2 = tx2 - (tx2 - tx1) * (alpha - ty2) / (ty1 - ty2);
+					ty2 = alpha;
+				}
+				_addCogTerms(tx1, ty1, tx2, ty2, min_dx, sums, 4);
+			}
+
+			// MICOG - function is lowered by alpha
+			ty1 = y1 - alpha;
+			ty2 = y2 - alpha;
+			if (ty1 >= 0.0 || ty2 >= 0.0) {
+				tx1 = x1;
+				tx2 = x2;
+				if (ty1 < 0.0) {
+					tx1 = tx1 - (tx2 - tx1) * ty1 / (ty2 - ty1);
+					ty1 = 0.0;
+				}
+				if (ty2 < 0.0) {
+					tx2 = tx2 + (tx2 - tx1) * ty2 / (ty1 - ty2);
+					ty2 = 0.0;
+				}
+				_addCogTerms(tx1, ty1, tx2, ty2, min_dx, sums, 8);
+			}
+		}
+
+		double middle = (xs[size - 1] - xs[0]) / 2.0 + xs[0];
+		dest.cog = _cogFromTerms(sums, 0, middle);
+		dest.icog = _cogFromTerms(sums, 4, middle);
+		dest.micog = _cogFromTerms(sums, 8, middle);
+		dest.center_of_max = xs[idxL] + (xs[idxR] - xs[idxL]) / 2.0;
+		dest.mean_of_max = flat_len > 0.0 ? flat_mom / flat_len : max_sum / max_cnt;
+		dest.height = max;
+
+		// bisector - segment where the area reaches half of the total area
+		double half = areas[size - 1] / 2.0;
+		if (!(half > 0.0)) {
+			dest.bisector = middle;
+			return dest;
+		}
+		int lo = 0, hi = size - 1, act;
+		while (hi - lo > 1) { // areas[lo] < half <= areas[hi]
+			act = (lo + hi) >>> 1;
+			if (areas[act] < half)
+				lo = act;
+			else
+				hi = act;
+		}
+		double r = half - areas[lo], dx = xs[hi] - xs[lo], t;
+		y1 = ys[lo];
+		// area from xs[lo] to xs[lo]+t is y1*t + slope*t^2/2 = r
+		t = y1 * y1 + 2.0 * (ys[hi] - y1) / dx * r;
+		t = 2.0 * r / (y1 + Math.sqrt(t > 0.0 ? t : 0.0));
+		dest.bisector = xs[lo] + (t < dx ? t : dx);
+		return dest;
+	}
+
+	/**
+	 * Calculates results of all defuzzyfication methods (see DeFuzzyfyAll) with
+	 * minimum dx = 0.000001.
+	 *
+	 * @param alpha alpha parameter of ICOG and MICOG methods
+	 * @return new object with results
+	 */
+	public DefuzResult DeFuzzyfyAll(double alpha) {
+		return DeFuzzyfyAll(alpha, 0.000001, new DefuzResult());
+	}
+
+	/**
+	 * Calculates results of all defuzzyfication methods for many sets.
+	 *
+	 * @param sets   fuzzy sets
+	 * @param alpha  alpha parameter of ICOG and MICOG methods
+	 * @param min_dx segments narrower than this value are skipped by COG, ICOG
+	 *               and MICOG
+	 * @param dest   array receiving results (missing objects are created). If
+	 *               null or shorter than sets, a new array is created.
+	 * @return array of results (in order of input sets)
+	 */
+	public static DefuzResult[] DeFuzzyfyAll(FuzzySet[] sets, double alpha, double min_dx, DefuzResult[] dest) {
+		if (dest == null || dest.length < sets.length)
+			dest = new DefuzResult[sets.length];
+		for (int i = 0; i < sets.length; i++) {
+			if (dest[i] == null)
+				dest[i] = new DefuzResult();
+			sets[i].DeFuzzyfyAll(alpha, min_dx, dest[i]);
+		}
+		return dest;
+	}
+
+	public static DefuzResult[] DeFuzzyfyAll(FuzzySet[] sets, double alpha) {
+		return DeFuzzyfyAll(sets, alpha, 0.000001, null);
+	}
+
+	// Adds one segment to sums of center of gravity formula
+	private static void _addCogTerms(double x1, double y1, double x2, double y2, double min_dx, double[] sums,
+			int off) {
+		double dx = x2 - x1;
+		if (dx > min_dx) {
+			double dy = y2 - y1;
+			double x12 = x1 * x1;
+			double x22 = x2 * x2;
+			double dx2 = x22 - x12;
+			double dx3 = x22 * x2 - x12 * x1;
+			double dd = x2 * y1 - x1 * y2;
+			sums[off] += dy * dx3 / dx;
+			sums[off + 1] += dd * dx2 / dx;
+			sums[off + 2] += dy * dx2 / dx;
+			sums[off + 3] += dd * dx / dx;
+		}
+	}
+
+	private static double _cogFromTerms(double[] sums, int off, double middle) {
+		double den = sums[off + 2] / 2.0 + sums[off + 3];
+		if (den != 0.0)
+			return (sums[off] / 3.0 + sums[off + 1] / 2.0) / den;
+		return middle;
+	}
+
 	public void DeFuzzConf(short method, double alpha, double min_dx) {
 		switch (method) {
 		case DefuzMethod.DF_COG:
@@ -1368,10 +2394,307 @@ public class FuzzySet {
 
 	public void ClearSet() {
 		size = 0;
+		// shared arrays are released (nothing to copy)
+		_own();
 		max_membership.x = 0.0;
 		max_membership.y = -1.0;
 		min_val = 10000;
 		max_val = -10000;
+		_changed();
+	}
+
+	/**
+	 * Method called after each change of the set. Rebuilds enabled bucket index,
+	 * drops other data derived from the description (integral index, support and
+	 * core bounds) and makes cached results out of date.
+	 */
+	protected void _changed() {
+		_updateBucketIndex();
+		int_area = int_moment = null;
+		meta_valid = false;
+		version++;
+	}
+
+	/**
+	 * Returns number of changes of the set. Each method changing the description
+	 * increments it, so results derived from the set can be cached with the
+	 * version they were calculated for.
+	 * 
+	 * @return version of the set
+	 */
+	public final long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Enables uniform bucket index used by getMembership. Domain between the first
+	 * and the last point is divided into buckets of equal width, each bucket keeps
+	 * index of the segment containing its left bound, so for evenly spread points
+	 * lookup takes constant time instead of binary search. The index is built
+	 * now and rebuilt by every method changing the set (enable it after the
+	 * description is complete), lookups never write into the set. The setting
+	 * and the index are kept by copies of the set (also frozen ones).
+	 * 
+	 * @param buckets number of buckets. If <= 0 then number of description points
+	 *                at the time of building the index is used.
+	 */
+	public void enableBucketIndex(int buckets) {
+		bucket_num = buckets > 0 ? buckets : -1;
+		_updateBucketIndex();
+	}
+
+	/**
+	 * Disables bucket index - getMembership returns to binary search.
+	 */
+	public void disableBucketIndex() {
+		bucket_num = 0;
+		bucket_idx = null;
+	}
+
+	/**
+	 * @return true if bucket index is enabled for this set
+	 */
+	public boolean isBucketIndexEnabled() {
+		return bucket_num != 0;
+	}
+
+	/**
+	 * Takes data derived from the description (bucket index, integral index,
+	 * support and core bounds) from a set sharing arrays of points with this set.
+	 * Enabled indexes which are not available in shape (or were built with
+	 * different settings) are built.
+	 * 
+	 * @param shape set sharing description with this set
+	 */
+	protected final void _shareDerived(FuzzySet shape) {
+		if (bucket_num == shape.bucket_num) {
+			bucket_idx = shape.bucket_idx;
+			bucket_scale = shape.bucket_scale;
+		} else
+			_updateBucketIndex();
+		if (integral_enabled) {
+			if (shape.int_area != null) {
+				int_area = shape.int_area;
+				int_moment = shape.int_moment;
+			} else if (size > 1)
+				_buildIntegralIndex();
+		}
+		if (shape.meta_valid) {
+			supp_min = shape.supp_min;
+			supp_max = shape.supp_max;
+			core_min = shape.core_min;
+			core_max = shape.core_max;
+			core_whole = shape.core_whole;
+			meta_valid = true;
+		}
+	}
+
+	// bucket of a given x value - monotone in x, the same formula is used for
+	// building and searching
+	private int _bucketOf(double x, int buckets) {
+		int b = (int) ((x - xs[0]) * bucket_scale);
+		return b < buckets ? b : buckets - 1;
+	}
+
+	// Builds bucket index if it is enabled and there is a segment to index
+	private void _updateBucketIndex() {
+		if (bucket_num != 0 && size > 1 && xs[size - 1] > xs[0])
+			_buildBucketIndex();
+		else
+			bucket_idx = null;
+	}
+
+	// Builds bucket index (set has to have at least 2 points with different x)
+	protected final void _buildBucketIndex() {
+		int buckets = bucket_num > 0 ? bucket_num : size;
+		int[] idx = new int[buckets];
+		bucket_scale = buckets / (xs[size - 1] - xs[0]);
+		// each bucket gets the last point lying in an earlier bucket, it is never
+		// to the right of any x value falling into the bucket
+		int i = 0;
+		for (int b = 1; b < buckets; b++) {
+			while (i + 1 < size && _bucketOf(xs[i + 1], buckets) < b)
+				i++;
+			idx[b] = i;
+		}
+		bucket_idx = idx;
+	}
+
+	/**
+	 * Finds segment containing given x value: xs[left] <= x < xs[left+1]. Value
+	 * has to be between the first and the last point of the description.
+	 * 
+	 * @param x x value
+	 * @return index of the left point of the segment
+	 */
+	protected final int _findSegment(double x) {
+		int left, right, width, act;
+
+		int[] idx = bucket_idx;
+		if (idx != null) {
+			left = idx[_bucketOf(x, idx.length)];
+			// x < last point, so the loop stops before the last segment
+			while (xs[left + 1] <= x)
+				left++;
+			return left;
+		}
+
+		// initialize
+		left = 0;
+		right = size - 1;
+
+		// while indices do not point to one range do:
+		while ((width = right - left) > 1) {
+			act = left + width / 2; // calculate index of the middle
+			if (x < xs[act])
+				right = act; // choose left half
+			else
+				left = act; // choose right half
+		}
+		return left;
+	}
+
+	/**
+	 * Enables integral index used by getArea and getMoment. The index keeps
+	 * integrals of f(x) and x*f(x) from the first point to each point of the
+	 * description, so integrals over any interval take O(log n) instead of a
+	 * pass through all segments. Frozen copies of the set use the index for fast
+	 * ICOG and MICOG defuzzyfication. The index is built on demand and dropped by
+	 * every method changing the set. The setting is kept by copies of the set.
+	 */
+	public void enableIntegralIndex() {
+		integral_enabled = true;
+	}
+
+	/**
+	 * Disables integral index.
+	 */
+	public void disableIntegralIndex() {
+		integral_enabled = false;
+		int_area = int_moment = null;
+	}
+
+	/**
+	 * @return true if integral index is enabled for this set
+	 */
+	public boolean isIntegralIndexEnabled() {
+		return integral_enabled;
+	}
+
+	// Builds integral index (set has to have at least 1 point)
+	protected final void _buildIntegralIndex() {
+		double[] ia = new double[size];
+		double[] im = new double[size];
+		for (int i = 1; i < size; i++) {
+			ia[i] = ia[i - 1] + _segmentArea(xs[i - 1], ys[i - 1], xs[i], ys[i]);
+			im[i] = im[i - 1] + _segmentMoment(xs[i - 1], ys[i - 1], xs[i], ys[i]);
+		}
+		int_area = ia;
+		int_moment = im;
+	}
+
+	// integral of linear function between points (x1,y1) and (x2,y2)
+	static double _segmentArea(double x1, double y1, double x2, double y2) {
+		return (y1 + y2) * (x2 - x1) / 2.0;
+	}
+
+	// integral of x*f(x) for linear function between points (x1,y1) and (x2,y2)
+	static double _segmentMoment(double x1, double y1, double x2, double y2) {
+		return (x2 - x1) * (x1 * (2.0 * y1 + y2) + x2 * (y1 + 2.0 * y2)) / 6.0;
+	}
+
+	/**
+	 * Integral of f(x) (moment = false) or x*f(x) (moment = true) from the first
+	 * point to a given x value lying in segment seg (xs[seg] <= x <= xs[seg+1]).
+	 * Integral index has to be built.
+	 *
+	 * @param seg    index of the left point of the segment
+	 * @param x      x value
+	 * @param moment true - integral of x*f(x), false - integral of f(x)
+	 * @return value of the integral
+	 */
+	protected final double _integralTo(int seg, double x, boolean moment) {
+		double x1 = xs[seg], y1 = ys[seg];
+		if (x <= x1) // also the last point (seg = size - 1)
+			return moment ? int_moment[seg] : int_area[seg];
+		double y = (x - x1) * (ys[seg + 1] - y1) / (xs[seg + 1] - x1) + y1;
+		if (moment)
+			return int_moment[seg] + _segmentMoment(x1, y1, x, y);
+		else
+			return int_area[seg] + _segmentArea(x1, y1, x, y);
+	}
+
+	// Integral of f(x) or x*f(x) over [from, to] limited to the description
+	private double _integral(double from, double to, boolean moment) {
+		if (size < 2)
+			return 0.0;
+		if (from < xs[0])
+			from = xs[0];
+		if (to > xs[size - 1])
+			to = xs[size - 1];
+		if (!(from < to))
+			return 0.0;
+		int first = _findSegment(from);
+		if (integral_enabled) {
+			if (int_area == null)
+				_buildIntegralIndex();
+			int last = to < xs[size - 1] ? _findSegment(to) : size - 1;
+			return _integralTo(last, to, moment) - _integralTo(first, from, moment);
+		}
+
+		// no index - sum of segments between from and to
+		double x1 = from, y1 = getMembership(from), x2, y2, sum = 0.0;
+		for (int i = first; x1 < to; i++) {
+			x2 = xs[i + 1];
+			y2 = ys[i + 1];
+			if (x2 > to) {
+				y2 = (to - xs[i]) * (y2 - ys[i]) / (x2 - xs[i]) + ys[i];
+				x2 = to;
+			}
+			sum += moment ? _segmentMoment(x1, y1, x2, y2) : _segmentArea(x1, y1, x2, y2);
+			x1 = x2;
+			y1 = y2;
+		}
+		return sum;
+	}
+
+	/**
+	 * Calculates area under membership function between the first and the last
+	 * point of the description. Frozen sets keep it precomputed.
+	 *
+	 * @return area under membership function
+	 */
+	public double getArea() {
+		double a = 0.0;
+		for (int i = 0; i < size - 1; i++)
+			a += (ys[i] + ys[i + 1]) * (xs[i + 1] - xs[i]) / 2.0;
+		return a;
+	}
+
+	/**
+	 * Calculates area under membership function over a given interval (only the
+	 * part between the first and the last point of the description is counted).
+	 * Takes O(log n) with integral index enabled.
+	 *
+	 * @param from left bound of the interval
+	 * @param to   right bound of the interval
+	 * @return integral of membership function
+	 */
+	public double getArea(double from, double to) {
+		return _integral(from, to, false);
+	}
+
+	/**
+	 * Calculates moment (integral of x*f(x)) of membership function over a given
+	 * interval (only the part between the first and the last point of the
+	 * description is counted). Takes O(log n) with integral index enabled.
+	 *
+	 * @param from left bound of the interval
+	 * @param to   right bound of the interval
+	 * @return integral of x multiplied by membership
+	 */
+	public double getMoment(double from, double to) {
+		return _integral(from, to, true);
 	}
 
 	// Calculates membership of given x value of a set
@@ -1379,16 +2702,16 @@ public class FuzzySet {
 		if (size == 0)
 			return 0.0;
 		// if x is below the first set point then return it's membership
-		if (x <= pts[0].x) {
+		if (x <= xs[0]) {
 			if (left_idx != null)
 				left_idx.setValue(-1);
-			return pts[0].y;
+			return ys[0];
 		}
 		// if x is above the last set point then return it's membership
-		if (x >= pts[size - 1].x) {
+		if (x >= xs[size - 1]) {
 			if (left_idx != null)
 				left_idx.setValue(size - 1);
-			return pts[size - 1].y;
+			return ys[size - 1];
 		}
 
 		// otherwise calculate result according to set points
@@ -1396,26 +2719,14 @@ public class FuzzySet {
 		// temporary variables
 		int left; // position of a left point of set's description
 		int right; // position of a left point of set's description
-		int width; // number of points between left and right index
-		int act; // actual index
 		double result; // result to return
 
-		// initialize
-		left = 0;
-		right = size - 1;
-
-		// while indices do not point to one range do:
-		while ((width = right - left) > 1) {
-			act = left + width / 2; // calculate index of the middle
-			if (x < pts[act].x)
-				right = act; // choose left half
-			else
-				left = act; // choose right half
-		}
+		left = _findSegment(x);
+		right = left + 1;
 
 		// calculate value of a linear function
-		result = (x - pts[left].x) * (pts[right].y - pts[left].y);
-		result = result / (pts[right].x - pts[left].x) + pts[left].y;
+		result = (x - xs[left]) * (ys[right] - ys[left]);
+		result = result / (xs[right] - xs[left]) + ys[left];
 		if (left_idx != null)
 			left_idx.setValue(left);
 		return result;
@@ -1427,20 +2738,21 @@ public class FuzzySet {
 
 	// Calculates membership of given x value of a set
 	// Method dedicated for constant division of description.
-	public double getMembershipD(double x, Integer left_idx) {
+	// If left_idx is not null it receives index of left point of used segment.
+	public double getMembershipD(double x, IntWrapper left_idx) {
 		if (size == 0)
 			return 0.0;
 		// if x is below the first set point then return it's membership
-		if (x <= pts[0].x) {
+		if (x <= xs[0]) {
 			if (left_idx != null)
-				left_idx = -1;
-			return pts[0].y;
+				left_idx.setValue(-1);
+			return ys[0];
 		}
 		// if x is above the last set point then return it's membership
-		if (x >= pts[size - 1].x) {
+		if (x >= xs[size - 1]) {
 			if (left_idx != null)
-				left_idx = size - 1;
-			return pts[size - 1].y;
+				left_idx.setValue(size - 1);
+			return ys[size - 1];
 		}
 
 		// otherwise calculate result according to set points
@@ -1448,118 +2760,447 @@ public class FuzzySet {
 		int act, last;
 
 		// prediction of a nearest point position
-		act = (int) ((size - 1) * (x - pts[0].x) / (pts[size - 1].x - pts[0].x));
+		act = (int) ((size - 1) * (x - xs[0]) / (xs[size - 1] - xs[0]));
 
-		if (x > pts[act].x) { // go right to calculate result
+		if (x > xs[act]) { // go right to calculate result
 			last = act;
 			act++;
-			while (x > pts[act].x) {
+			while (x > xs[act]) {
 				last = act;
 				act++;
 			}
 			// ((x-x1)*(y2-y1)/(x2-x1)) + y1
 			if (left_idx != null)
-				left_idx = last;
-			return ((x - pts[last].x) * (pts[act].y - pts[last].y) / (pts[act].x - pts[last].x)) + pts[last].y;
+				left_idx.setValue(last);
+			return ((x - xs[last]) * (ys[act] - ys[last]) / (xs[act] - xs[last])) + ys[last];
 		} else { // go left to calculate result
 			last = act;
 			act--;
-			while (x < pts[act].x) {
+			while (x < xs[act]) {
 				last = act;
 				act--;
 			}
 			// ((x-x1)*(y2-y1)/(x2-x1)) + y1
 			if (left_idx != null)
-				left_idx = act;
-			return ((x - pts[act].x) * (pts[last].y - pts[act].y) / (pts[last].x - pts[act].x)) + pts[act].y;
+				left_idx.setValue(act);
+			return ((x - xs[act]) * (ys[last] - ys[act]) / (xs[last] - xs[act])) + ys[act];
 		}
 	}
 
 	public double getMembershipD(double x) {
-		return getMembershipD(x, 0);
+		return getMembershipD(x, null);
+	}
+
+	/**
+	 * Calculates memberships of n given x values. If the input values are sorted
+	 * (ascending) the description is walked once with a merge cursor - O(n+m),
+	 * where m is the number of description points. Otherwise each value is
+	 * located with the bucket index (if enabled) or a branch-free binary search of
+	 * a fixed number of steps.
+	 * 
+	 * @param in  x values
+	 * @param out array receiving memberships (at least n elements)
+	 * @param n   number of values to calculate
+	 */
+	public void getMembership(double[] in, double[] out, int n) {
+		if (size == 0) {
+			Arrays.fill(out, 0, n, 0.0);
+			return;
+		}
+
+		int i;
+		boolean sorted = true;
+		for (i = 1; i < n; i++) {
+			if (in[i] < in[i - 1]) {
+				sorted = false;
+				break;
+			}
+		}
+
+		double first = xs[0], last = xs[size - 1];
+		double x;
+		int left = 0;
+
+		if (sorted) {
+			for (i = 0; i < n; i++) {
+				x = in[i];
+				if (x <= first)
+					out[i] = ys[0];
+				else if (x >= last)
+					out[i] = ys[size - 1];
+				else {
+					// x < last, so the cursor never passes the last segment
+					while (xs[left + 1] <= x)
+						left++;
+					out[i] = (x - xs[left]) * (ys[left + 1] - ys[left]) / (xs[left + 1] - xs[left]) + ys[left];
+				}
+			}
+			return;
+		}
+
+		int len, half;
+		for (i = 0; i < n; i++) {
+			x = in[i];
+			if (x <= first)
+				out[i] = ys[0];
+			else if (x >= last)
+				out[i] = ys[size - 1];
+			else if (bucket_idx != null) {
+				left = _findSegment(x);
+				out[i] = (x - xs[left]) * (ys[left + 1] - ys[left]) / (xs[left + 1] - xs[left]) + ys[left];
+			} else {
+				// find last point with xs[left] <= x
+				left = 0;
+				len = size;
+				while (len > 1) {
+					half = len >>> 1;
+					left = xs[left + half] <= x ? left + half : left;
+					len -= half;
+				}
+				out[i] = (x - xs[left]) * (ys[left + 1] - ys[left]) / (xs[left + 1] - xs[left]) + ys[left];
+			}
+		}
 	}
 
 	public double getMaximumMembership() {
 		return max_membership.y;
 	}
 
+	/**
+	 * Calculates bounds of support and core with one pass through the
+	 * description. The description is continued by the first and the last
+	 * membership value, so a bound lies in infinity if the first (last) point
+	 * belongs to the support (core).
+	 */
+	protected final void _updateMeta() {
+		int l = 0, r = size - 1;
+		while (l < size && ys[l] <= 0.0)
+			l++;
+		while (r >= 0 && ys[r] <= 0.0)
+			r--;
+		if (l == size) { // empty support
+			supp_min = Double.POSITIVE_INFINITY;
+			supp_max = Double.NEGATIVE_INFINITY;
+		} else {
+			supp_min = l == 0 ? Double.NEGATIVE_INFINITY : xs[l - 1];
+			supp_max = r == size - 1 ? Double.POSITIVE_INFINITY : xs[r + 1];
+		}
+
+		l = 0;
+		r = size - 1;
+		while (l < size && ys[l] < 1.0)
+			l++;
+		while (r >= 0 && ys[r] < 1.0)
+			r--;
+		core_whole = true;
+		if (l == size) { // empty core
+			core_min = Double.POSITIVE_INFINITY;
+			core_max = Double.NEGATIVE_INFINITY;
+		} else {
+			core_min = l == 0 ? Double.NEGATIVE_INFINITY : xs[l];
+			core_max = r == size - 1 ? Double.POSITIVE_INFINITY : xs[r];
+			for (int i = l + 1; i < r && core_whole; i++)
+				core_whole = ys[i] >= 1.0;
+		}
+		meta_valid = true;
+	}
+
+	/**
+	 * @return left bound of support (-infinity if first point has membership >
+	 *         0, +infinity if support is empty)
+	 */
+	public final double getSupportMin() {
+		if (!meta_valid)
+			_updateMeta();
+		return supp_min;
+	}
+
+	/**
+	 * @return right bound of support (+infinity if last point has membership >
+	 *         0, -infinity if support is empty)
+	 */
+	public final double getSupportMax() {
+		if (!meta_valid)
+			_updateMeta();
+		return supp_max;
+	}
+
+	// Checks if membership is >= 1 everywhere between core bounds (false for an
+	// empty core)
+	private boolean _isCoreWhole() {
+		if (!meta_valid)
+			_updateMeta();
+		return core_whole && core_min <= core_max;
+	}
+
+	/**
+	 * @return left bound of core - membership >= 1 (-infinity if first point
+	 *         belongs to the core, +infinity if core is empty)
+	 */
+	public final double getCoreMin() {
+		if (!meta_valid)
+			_updateMeta();
+		return core_min;
+	}
+
+	/**
+	 * @return right bound of core - membership >= 1 (+infinity if last point
+	 *         belongs to the core, -infinity if core is empty)
+	 */
+	public final double getCoreMax() {
+		if (!meta_valid)
+			_updateMeta();
+		return core_max;
+	}
+
+	/**
+	 * @return average membership of description points (precomputed by frozen
+	 *         sets)
+	 */
 	public double getAverageMembership() {
+		return _averageMembership();
+	}
+
+	// Average membership (frozen sets calculate it once)
+	protected final double _averageMembership() {
 		if (size == 0)
 			return 0.0;
 		double tmp = 0.0;
 
 		for (int i = 0; i < size; i++) {
-			tmp += pts[i].y;
+			tmp += ys[i];
 		}
 
 		return tmp / size;
 	}
 
 	// Returns point with maximal membership
-	public final SPoint getMaxPoint() {
+	public SPoint getMaxPoint() {
 		return max_membership;
 	}
 
 	public void processSetAndMembershipWithNorm(double level, Norm norm) {
+		_own();
 		if (size <= 0)
 			return;
 
 		double last_y, last_diff;
 		SPoint cross = new SPoint();
 
-		last_y = pts[0].y;
-		last_diff = level - pts[0].y;
+		last_y = ys[0];
+		last_diff = level - ys[0];
 		max_membership.x = 0.0;
 		max_membership.y = -1.0;
 
 		for (int i = 0; i < size; i++) {
 			// if level crossed the function add new point at cross position
-			if ((last_diff * (level - pts[i].y)) < 0.0) {
-				cross.x = ((level - last_y) * (pts[i].x - pts[i - 1].x));
-				cross.x = (cross.x / (pts[i].y - last_y)) + pts[i - 1].x;
+			if ((last_diff * (level - ys[i])) < 0.0) {
+				cross.x = ((level - last_y) * (xs[i] - xs[i - 1]));
+				cross.x = (cross.x / (ys[i] - last_y)) + xs[i - 1];
 				cross.y = norm.calc(level, level);
 				addPoint(cross);
 				if (max_membership.y < cross.y)
 					max_membership.assign(cross);
 				i++; // ommit added point in further analysis
 			}
-			last_diff = level - pts[i].y;
-			last_y = pts[i].y;
-			pts[i].y = norm.calc(level, pts[i].y);
-			if (max_membership.y < pts[i].y)
-				max_membership.assign(pts[i]);
+			last_diff = level - ys[i];
+			last_y = ys[i];
+			ys[i] = norm.calc(level, ys[i]);
+			if (max_membership.y < ys[i])
+				max_membership.assign(xs[i], ys[i]);
 		}
+		_changed();
 	}
 
 	// Public version of processing function
 	// - asures size adjusting (if needed) of destination set
 	public static void processSetsWithNorm(FuzzySet dest, FuzzySet aSet, FuzzySet bSet, Norm norm) {
+		_processSetsWithNormEx(dest, aSet, 0.0, 1.0, bSet, 0.0, 1.0, norm);
+	}
+
+	// Version for a shifted/scaled view of the first set (view is not copied)
+	public static void processSetsWithNorm(FuzzySet dest, FuzzySetView aSet, FuzzySet bSet, Norm norm) {
+		_processSetsWithNormEx(dest, aSet.getSet(), aSet.getOffset(), aSet.getScale(), bSet, 0.0, 1.0, norm);
+	}
+
+	// Version for a shifted/scaled view of the second set (view is not copied)
+	public static void processSetsWithNorm(FuzzySet dest, FuzzySet aSet, FuzzySetView bSet, Norm norm) {
+		_processSetsWithNormEx(dest, aSet, 0.0, 1.0, bSet.getSet(), bSet.getOffset(), bSet.getScale(), norm);
+	}
+
+	// Version for shifted/scaled views of both sets (views are not copied)
+	public static void processSetsWithNorm(FuzzySet dest, FuzzySetView aSet, FuzzySetView bSet, Norm norm) {
+		_processSetsWithNormEx(dest, aSet.getSet(), aSet.getOffset(), aSet.getScale(), bSet.getSet(),
+				bSet.getOffset(), bSet.getScale(), norm);
+	}
+
+	// Checks input sets and prepares destination set. x values of input points
+	// are transformed: x * scale + offset.
+	private static void _processSetsWithNormEx(FuzzySet dest, FuzzySet aSet, double aOff, double aScale,
+			FuzzySet bSet, double bOff, double bScale, Norm norm) {
 
 		if ((aSet.size == 0) || (bSet.size == 0))
 			return;
 
-		// clear destination set
+		// clear destination set (no allocation, fails for a frozen set)
 		dest.ClearSet();
 
-		// allocate new memory if needed
-		if (dest.pts.length <= aSet.size + bSet.size) {
-			dest._constructArray(aSet.size + bSet.size + DEFAULT_ARRAY_EXTENSION);
+		// T-Norm of sets with disjoint supports is 0, T-Norm of a set with support
+		// inside the core of the other set is the set itself (result has points of
+		// that set only). Drastic t-norm of this library gives 1 if any argument is
+		// 1, so it does not satisfy T(a,0) = 0 and T(a,1) = a - it is always
+		// processed point by point.
+		if (_boundaryTNorm(norm)) {
+			double aSuppMin = aSet.getSupportMin() * aScale + aOff, aSuppMax = aSet.getSupportMax() * aScale + aOff;
+			double bSuppMin = bSet.getSupportMin() * bScale + bOff, bSuppMax = bSet.getSupportMax() * bScale + bOff;
+			if (aSuppMax <= bSuppMin || bSuppMax <= aSuppMin) {
+				_copyWithNorm(dest, null, 0.0, 1.0, aSet, aOff, aScale, bSet, bOff, bScale);
+				return;
+			}
+			if (bSet._isCoreWhole() && bSet.getCoreMin() * bScale + bOff <= aSuppMin
+					&& aSuppMax <= bSet.getCoreMax() * bScale + bOff) {
+				_copyWithNorm(dest, aSet, aOff, aScale, aSet, aOff, aScale, bSet, bOff, bScale);
+				return;
+			}
+			if (aSet._isCoreWhole() && aSet.getCoreMin() * aScale + aOff <= bSuppMin
+					&& bSuppMax <= aSet.getCoreMax() * aScale + aOff) {
+				_copyWithNorm(dest, bSet, bOff, bScale, aSet, aOff, aScale, bSet, bOff, bScale);
+				return;
+			}
 		}
 
 		// now process sets
-		_processSetsWithNorm(dest, aSet, bSet, norm);
+		_processSetsWithNorm(dest, aSet, aOff, aScale, bSet, bOff, bScale, norm);
 	}
 
-	// Calculates the result of a norm operation between two fuzzy sets
-	// Method assumes that the destination set has enough memory to store the
-	// result
-	private static void _processSetsWithNorm(FuzzySet dest, FuzzySet aSet, FuzzySet bSet, Norm norm) {
-		SPoint Abeg = new SPoint();
-		SPoint Aend = new SPoint();
-		SPoint Bbeg = new SPoint();
-		SPoint Bend = new SPoint();
-		SPoint cross = new SPoint();
-		double last_dif, act_dif;
+	// Checks if a norm is a T-Norm satisfying T(a,0) = 0 and T(a,1) = a
+	private static boolean _boundaryTNorm(Norm norm) {
+		return TNorm.isTNorm(norm) && norm.getType() != TNorm.TN_DRASTIC;
+	}
+
+	// Result of a short-circuited norm operation: points of src (zero function if
+	// src is null) extended to the range of both input sets. x values of input
+	// points are transformed: x * scale + offset.
+	private static void _copyWithNorm(FuzzySet dest, FuzzySet src, double sOff, double sScale, FuzzySet aSet,
+			double aOff, double aScale, FuzzySet bSet, double bOff, double bScale) {
+		double aMin = aSet.xs[0] * aScale + aOff, bMin = bSet.xs[0] * bScale + bOff;
+		double aMax = aSet.xs[aSet.size - 1] * aScale + aOff, bMax = bSet.xs[bSet.size - 1] * bScale + bOff;
+		double lo = aMin < bMin ? aMin : bMin, hi = aMax > bMax ? aMax : bMax;
+		int n = 0, ns = src == null ? 0 : src.size;
+
+		if (dest.xs.length < ns + 2) {
+			dest._constructArray(ns + 2 + DEFAULT_ARRAY_EXTENSION);
+		}
+		if (ns == 0) {
+			dest.xs[n] = lo;
+			dest.ys[n++] = 0.0;
+			if (hi > lo) {
+				dest.xs[n] = hi;
+				dest.ys[n++] = 0.0;
+			}
+		} else {
+			double first = src.xs[0] * sScale + sOff, last = src.xs[ns - 1] * sScale + sOff;
+			if (lo < first) {
+				dest.xs[n] = lo;
+				dest.ys[n++] = src.ys[0];
+			}
+			for (int i = 0; i < ns; i++) {
+				dest.xs[n] = src.xs[i] * sScale + sOff;
+				dest.ys[n++] = src.ys[i];
+			}
+			if (hi > last) {
+				dest.xs[n] = hi;
+				dest.ys[n++] = src.ys[ns - 1];
+			}
+		}
+
+		int max = 0;
+		for (int i = 1; i < n; i++) {
+			if (dest.ys[max] < dest.ys[i])
+				max = i;
+		}
+		dest.max_membership.assign(dest.xs[max], dest.ys[max]);
+
+		aMin = aSet.min_val * aScale + aOff;
+		bMin = bSet.min_val * bScale + bOff;
+		aMax = aSet.max_val * aScale + aOff;
+		bMax = bSet.max_val * bScale + bOff;
+		dest.size = n;
+		dest.min_val = aMin < bMin ? aMin : bMin;
+		dest.max_val = aMax > bMax ? aMax : bMax;
+		dest._changed();
+	}
+
+	/**
+	 * Upper bound of number of points of a result of processing two sets with a
+	 * norm: each point of both sets and at most one crossing of membership
+	 * functions between subsequent points.
+	 * 
+	 * @param aSize number of points of the first set
+	 * @param bSize number of points of the second set
+	 * @return maximum number of result points
+	 */
+	public static int getMergeBound(int aSize, int bSize) {
+		return 2 * (aSize + bSize);
+	}
+
+	// Calculates the result of a norm operation between two fuzzy sets. Memory
+	// of destination set is extended (at most once) to the bound of result
+	// size. x values of input points are transformed: x * scale + offset.
+	private static void _processSetsWithNorm(FuzzySet dest, FuzzySet aSet, double aOff, double aScale,
+			FuzzySet bSet, double bOff, double bScale, Norm norm) {
+		int bound = getMergeBound(aSet.size, bSet.size);
+		if (dest.xs.length < bound) {
+			dest._constructArray(bound + DEFAULT_ARRAY_EXTENSION);
+		}
+
+		int n = _mergeWithNorm(aSet.xs, aSet.ys, aSet.size, aOff, aScale, bSet.xs, bSet.ys, bSet.size, bOff, bScale,
+				norm, dest.xs, dest.ys);
+
+		int max = 0;
+		for (int i = 1; i < n; i++) {
+			if (dest.ys[max] < dest.ys[i])
+				max = i;
+		}
+		dest.max_membership.assign(dest.xs[max], dest.ys[max]);
+
+		double aMin = aSet.min_val * aScale + aOff, bMin = bSet.min_val * bScale + bOff;
+		double aMax = aSet.max_val * aScale + aOff, bMax = bSet.max_val * bScale + bOff;
+		dest.size = n;
+		dest.min_val = aMin < bMin ? aMin : bMin;
+		dest.max_val = aMax > bMax ? aMax : bMax;
+		dest._changed();
+	}
+
+	/**
+	 * Calculates the result of a norm operation between two piecewise-linear
+	 * functions given by arrays of points (x values ascending). Result points are
+	 * written into given arrays - no memory is allocated. Both input functions
+	 * are continued by the first and the last membership value.
+	 * 
+	 * @param ax   x values of the first function
+	 * @param ay   y values of the first function
+	 * @param na   number of points of the first function (> 0)
+	 * @param bx   x values of the second function
+	 * @param by   y values of the second function
+	 * @param nb   number of points of the second function (> 0)
+	 * @param norm norm operation
+	 * @param outX x values of result - length at least getMergeBound(na, nb)
+	 * @param outY y values of result - length at least getMergeBound(na, nb)
+	 * @return number of result points
+	 */
+	public static int mergeWithNorm(double[] ax, double[] ay, int na, double[] bx, double[] by, int nb, Norm norm,
+			double[] outX, double[] outY) {
+		return _mergeWithNorm(ax, ay, na, 0.0, 1.0, bx, by, nb, 0.0, 1.0, norm, outX, outY);
+	}
+
+	// Merge kernel working on primitive values. Current segment of each function
+	// is kept as begin (xb,yb) and end (xe,ye) points. x values of input points
+	// are transformed: x * scale + offset.
+	private static int _mergeWithNorm(double[] ax, double[] ay, int na, double aOff, double aScale, double[] bx,
+			double[] by, int nb, double bOff, double bScale, Norm norm, double[] outX, double[] outY) {
+		double axb, ayb, axe, aye, bxb, byb, bxe, bye;
+		double last_dif, act_dif, o1, o2, cy;
 		int posA, posB, out_counter;
 		boolean A_NotDone, B_NotDone;
 
@@ -1568,118 +3209,512 @@ public class FuzzySet {
 		// 0 - calculate the first point - beginning
 		posA = posB = 0;
 		out_counter = 0;
-		Abeg.assign(aSet.pts[posA]);
-		Bbeg.assign(bSet.pts[posB]);
-		if (Abeg.x < Bbeg.x) {
-			Bbeg.x = Abeg.x;
-			if (posA < (aSet.size - 1))
+		axb = ax[posA] * aScale + aOff;
+		ayb = ay[posA];
+		bxb = bx[posB] * bScale + bOff;
+		byb = by[posB];
+		if (axb < bxb) {
+			bxb = axb;
+			if (posA < (na - 1))
 				posA++; // increment pointer if possible
 			else
 				A_NotDone = false;
 		} else {
-			if (Abeg.x > Bbeg.x) {
-				Abeg.x = Bbeg.x;
-				if (posB < (bSet.size - 1))
+			if (axb > bxb) {
+				axb = bxb;
+				if (posB < (nb - 1))
 					posB++; // increment pointer if possible
 				else
 					B_NotDone = false;
-			} else { // if Abeg.x == Bbeg.x
+			} else { // if axb == bxb
 				// incrementation needed to avoid input of two points with te
 				// same values
-				if (posA < (aSet.size - 1))
+				if (posA < (na - 1))
 					posA++; // increment pointer if possible
 				else
 					A_NotDone = false;
-				if (posB < (bSet.size - 1))
+				if (posB < (nb - 1))
 					posB++; // increment pointer if possible
 				else
 					B_NotDone = false;
 			}
 		}
-		last_dif = act_dif = Abeg.y - Bbeg.y;
+		last_dif = act_dif = ayb - byb;
 		// add first point to result set
-		dest.pts[out_counter].x = Abeg.x;
-		dest.pts[out_counter].y = norm.calc(Abeg.y, Bbeg.y);
-		dest.max_membership.assign(dest.pts[out_counter]);
+		outX[out_counter] = axb;
+		outY[out_counter] = norm.calc(ayb, byb);
 		out_counter++;
 
 		// loop through all points in both sets
 		while (A_NotDone || B_NotDone) {
-			Aend.assign(aSet.pts[posA]);
-			Bend.assign(bSet.pts[posB]);
+			axe = ax[posA] * aScale + aOff;
+			aye = ay[posA];
+			bxe = bx[posB] * bScale + bOff;
+			bye = by[posB];
 			if (A_NotDone == false)
-				Aend.x = Bend.x;
+				axe = bxe;
 			if (B_NotDone == false)
-				Bend.x = Aend.x + 1.0;
-			if (Aend.x < Bend.x) {
+				bxe = axe + 1.0;
+			if (axe < bxe) {
 				// wyznaczenie punktu dla drugiego zbioru
-				Bend.y = ((Aend.x - Bbeg.x) * (Bend.y - Bbeg.y) / (Bend.x - Bbeg.x)) + Bbeg.y;
-				Bend.x = Aend.x;
-				if (posA < (aSet.size - 1))
+				bye = ((axe - bxb) * (bye - byb) / (bxe - bxb)) + byb;
+				bxe = axe;
+				if (posA < (na - 1))
 					posA++; // increment pointer if possible
 				else
 					A_NotDone = false;
 			} else {
-				if (Aend.x > Bend.x) {
+				if (axe > bxe) {
 					// wyznaczenie punktu dla pierwszego zbioru
-					Aend.y = ((Bend.x - Abeg.x) * (Aend.y - Abeg.y) / (Aend.x - Abeg.x)) + Abeg.y;
-					Aend.x = Bend.x;
-					if (posB < (bSet.size - 1))
+					aye = ((bxe - axb) * (aye - ayb) / (axe - axb)) + ayb;
+					axe = bxe;
+					if (posB < (nb - 1))
 						posB++; // increment pointer if possible
 					else
 						B_NotDone = false;
-				} else { // if Aend.x == Bend.x
+				} else { // if axe == bxe
 					// incrementation needed to avoid input of two points with
 					// te same values
-					if (posA < (aSet.size - 1))
+					if (posA < (na - 1))
 						posA++; // increment pointer if possible
 					else
 						A_NotDone = false;
-					if (posB < (bSet.size - 1))
+					if (posB < (nb - 1))
 						posB++; // increment pointer if possible
 					else
 						B_NotDone = false;
 				}
 			}
-			act_dif = Aend.y - Bend.y;
+			act_dif = aye - bye;
 			// jesli wczesniej nastapilo przeciecie funkcji przynaleznosci
 			// zbiorow to
 			// wylicz punkt przeciecia funkcji i dodaj go do zbioru wynikowego
 			if ((act_dif * last_dif) < 0.0) {
-				double o1, o2;
-				o1 = Abeg.y - Bbeg.y;
-				o2 = Bend.y - Aend.y;
-				cross.x = ((Aend.x * o1) + (Abeg.x * o2)) / (o1 + o2);
-				cross.y = ((Aend.y * Bbeg.y) - (Abeg.y * Bend.y)) / (-1.0 * (o1 + o2));
-				dest.pts[out_counter].x = cross.x;
-				dest.pts[out_counter].y = norm.calc(cross.y, cross.y);
-				if (dest.max_membership.y < dest.pts[out_counter].y)
-					dest.max_membership.assign(dest.pts[out_counter]);
+				o1 = ayb - byb;
+				o2 = bye - aye;
+				cy = ((aye * byb) - (ayb * bye)) / (-1.0 * (o1 + o2));
+				outX[out_counter] = ((axe * o1) + (axb * o2)) / (o1 + o2);
+				outY[out_counter] = norm.calc(cy, cy);
 				out_counter++;
-				if (out_counter >= dest.pts.length) {
-					dest.size = out_counter;
-					dest.extendSize(DEFAULT_ARRAY_EXTENSION);
-				}
 			}
 			// add next point to result set
-			dest.pts[out_counter].x = Aend.x;
-			dest.pts[out_counter].y = norm.calc(Aend.y, Bend.y);
-			if (dest.max_membership.y < dest.pts[out_counter].y)
-				dest.max_membership.assign(dest.pts[out_counter]);
+			outX[out_counter] = axe;
+			outY[out_counter] = norm.calc(aye, bye);
 			out_counter++;
-			if (out_counter >= dest.pts.length) {
-				dest.size = out_counter;
-				dest.extendSize(DEFAULT_ARRAY_EXTENSION);
-			}
 			// last values become first for next step
-			Abeg.assign(Aend);
-			Bbeg.assign(Bend);
+			axb = axe;
+			ayb = aye;
+			bxb = bxe;
+			byb = bye;
 			last_dif = act_dif;
 		}
+		return out_counter;
+	}
 
-		dest.size = out_counter;
-		dest.min_val = aSet.min_val < bSet.min_val ? aSet.min_val : bSet.min_val;
-		dest.max_val = aSet.max_val > bSet.max_val ? aSet.max_val : bSet.max_val;
+	/**
+	 * Calculates height (maximum membership) of the result of processing two sets
+	 * with a T-Norm without creating the result set. Both lists of points are
+	 * walked as in processSetsWithNorm and the walk stops as soon as membership
+	 * 1.0 is reached. The result is equal to the maximum membership of the set
+	 * created by processSetsWithNorm.
+	 * 
+	 * @param aSet  first set
+	 * @param bSet  second set
+	 * @param tnorm T-Norm operation
+	 * @return height of the result (0 if any set is empty)
+	 */
+	public static double heightOfNorm(FuzzySet aSet, FuzzySet bSet, TNorm tnorm) {
+		return _heightOfNorm(aSet, 0.0, 1.0, bSet, 0.0, 1.0, tnorm);
+	}
+
+	// Version for a shifted/scaled view of the first set (view is not copied)
+	public static double heightOfNorm(FuzzySetView aSet, FuzzySet bSet, TNorm tnorm) {
+		return _heightOfNorm(aSet.getSet(), aSet.getOffset(), aSet.getScale(), bSet, 0.0, 1.0, tnorm);
+	}
+
+	// Maximum membership calculated from points (point of maximum membership is
+	// not kept exact by all operations)
+	private static double _maxMembership(FuzzySet fs) {
+		double max = fs.ys[0];
+		for (int i = 1; i < fs.size; i++) {
+			if (max < fs.ys[i])
+				max = fs.ys[i];
+		}
+		return max;
+	}
+
+	// Walk of _mergeWithNorm keeping only the maximum of result memberships
+	private static double _heightOfNorm(FuzzySet aSet, double aOff, double aScale, FuzzySet bSet, double bOff,
+			double bScale, Norm norm) {
+		int na = aSet.size, nb = bSet.size;
+		if ((na == 0) || (nb == 0))
+			return 0.0;
+
+		// disjoint supports, overlapping cores, support inside core (only for
+		// T-Norms satisfying boundary conditions - see _processSetsWithNormEx)
+		if (_boundaryTNorm(norm)) {
+			double aSuppMin = aSet.getSupportMin() * aScale + aOff, aSuppMax = aSet.getSupportMax() * aScale + aOff;
+			double bSuppMin = bSet.getSupportMin() * bScale + bOff, bSuppMax = bSet.getSupportMax() * bScale + bOff;
+			if (aSuppMax <= bSuppMin || bSuppMax <= aSuppMin)
+				return 0.0;
+			boolean aWhole = aSet._isCoreWhole(), bWhole = bSet._isCoreWhole();
+			double aCoreMin = aSet.getCoreMin() * aScale + aOff, aCoreMax = aSet.getCoreMax() * aScale + aOff;
+			double bCoreMin = bSet.getCoreMin() * bScale + bOff, bCoreMax = bSet.getCoreMax() * bScale + bOff;
+			if (aWhole && bWhole && aCoreMin <= bCoreMax && bCoreMin <= aCoreMax)
+				return 1.0;
+			if (bWhole && bCoreMin <= aSuppMin && aSuppMax <= bCoreMax)
+				return _maxMembership(aSet);
+			if (aWhole && aCoreMin <= bSuppMin && bSuppMax <= aCoreMax)
+				return _maxMembership(bSet);
+		}
+
+		double[] ax = aSet.xs, ay = aSet.ys, bx = bSet.xs, by = bSet.ys;
+		double axb, ayb, axe, aye, bxb, byb, bxe, bye;
+		double last_dif, act_dif, o1, o2, cy, y, max;
+		int posA = 0, posB = 0;
+		boolean A_NotDone = true, B_NotDone = true;
+
+		// the first point
+		axb = ax[0] * aScale + aOff;
+		ayb = ay[0];
+		bxb = bx[0] * bScale + bOff;
+		byb = by[0];
+		if (axb <= bxb) {
+			if (posA < (na - 1))
+				posA++;
+			else
+				A_NotDone = false;
+		}
+		if (axb >= bxb) {
+			if (posB < (nb - 1))
+				posB++;
+			else
+				B_NotDone = false;
+		}
+		if (axb < bxb)
+			bxb = axb;
+		else
+			axb = bxb;
+		last_dif = ayb - byb;
+		max = norm.calc(ayb, byb);
+
+		while ((A_NotDone || B_NotDone) && max < 1.0) {
+			axe = ax[posA] * aScale + aOff;
+			aye = ay[posA];
+			bxe = bx[posB] * bScale + bOff;
+			bye = by[posB];
+			if (A_NotDone == false)
+				axe = bxe;
+			if (B_NotDone == false)
+				bxe = axe + 1.0;
+			if (axe < bxe) {
+				bye = ((axe - bxb) * (bye - byb) / (bxe - bxb)) + byb;
+				bxe = axe;
+				if (posA < (na - 1))
+					posA++;
+				else
+					A_NotDone = false;
+			} else {
+				if (axe > bxe) {
+					aye = ((bxe - axb) * (aye - ayb) / (axe - axb)) + ayb;
+					axe = bxe;
+					if (posB < (nb - 1))
+						posB++;
+					else
+						B_NotDone = false;
+				} else {
+					if (posA < (na - 1))
+						posA++;
+					else
+						A_NotDone = false;
+					if (posB < (nb - 1))
+						posB++;
+					else
+						B_NotDone = false;
+				}
+			}
+			act_dif = aye - bye;
+			// crossing of membership functions
+			if ((act_dif * last_dif) < 0.0) {
+				o1 = ayb - byb;
+				o2 = bye - aye;
+				cy = ((aye * byb) - (ayb * bye)) / (-1.0 * (o1 + o2));
+				y = norm.calc(cy, cy);
+				if (max < y)
+					max = y;
+			}
+			y = norm.calc(aye, bye);
+			if (max < y)
+				max = y;
+			axb = axe;
+			ayb = aye;
+			bxb = bxe;
+			byb = bye;
+			last_dif = act_dif;
+		}
+		return max;
+	}
+
+	/**
+	 * Processes many fuzzy sets with a norm in one sweep. Memberships are folded
+	 * in the order of sets with each next set as the first argument:
+	 * norm(sk, ...norm(s2, norm(s1, s0))...) - the same order as agregation of
+	 * rule results (norm(rule result, agregated set)). All description points of
+	 * input sets are visited in ascending order of x (k-way merge driven by a
+	 * heap). Between subsequent points all membership functions are linear, so
+	 * only crossings changing the lower envelope (T-Norm), the upper envelope
+	 * (S-Norm) or both (other operations) are added as result points.
+	 * 
+	 * At steps (points with equal x) both the left and the right limit of the
+	 * result are added, so steps are not turned into ramps. For minimum and
+	 * maximum the result describes the same membership function as folding the
+	 * sets pair by pair with processSetsWithNorm(FuzzySet, FuzzySet, FuzzySet,
+	 * Norm), but the description points may differ (the pairwise fold keeps
+	 * collinear points and zero-width spikes at steps). Other operations are not
+	 * linear between points, and the pairwise fold adds points at crossings of
+	 * intermediate results, so the results of both methods differ slightly.
+	 * Reasoning systems keep the pairwise fold for rule agregation.
+	 * 
+	 * Empty sets are skipped. If all sets are empty, the destination set is
+	 * cleared. The destination set must not be one of input sets.
+	 * 
+	 * @param dest destination set
+	 * @param sets input sets
+	 * @param norm norm operation
+	 */
+	public static void processSetsWithNorm(FuzzySet dest, FuzzySet[] sets, Norm norm) {
+		processSetsWithNorm(dest, sets, sets.length, norm);
+	}
+
+	/**
+	 * Processes first count sets of an array with a norm in one sweep (see
+	 * processSetsWithNorm(FuzzySet, FuzzySet[], Norm)).
+	 * 
+	 * @param dest  destination set
+	 * @param sets  input sets
+	 * @param count number of sets to process
+	 * @param norm  norm operation
+	 */
+	public static void processSetsWithNorm(FuzzySet dest, FuzzySet[] sets, int count, Norm norm) {
+		dest.ClearSet();
+
+		// working arrays are kept by the destination set
+		Work w = dest._work(count);
+		int i, k = 0, total = 0;
+		FuzzySet[] s = w.sets;
+		for (i = 0; i < count; i++) {
+			if (sets[i].size > 0) {
+				s[k++] = sets[i];
+				total += sets[i].size;
+			}
+		}
+		if (k == 0)
+			return;
+
+		boolean lower = !SNorm.isSNorm(norm);
+		boolean upper = !TNorm.isTNorm(norm);
+
+		int[] pos = w.ia; // number of visited points of each set
+		int[] heap = w.ib; // sets ordered by x of the next point
+		double[] prev = w.da; // memberships at the previous point
+		double[] act = w.db; // memberships at the current point (left limits)
+		double[] right = w.dd; // right limits at the current point
+		double[] cross = w.dc; // crossings between two points
+		double[] tmp;
+		boolean step;
+		int heapSize = k, n = 0, nc, top;
+		double x, px = 0.0, t;
+
+		Arrays.fill(pos, 0, k, 0);
+		for (i = 0; i < k; i++)
+			heap[i] = i;
+		for (i = k / 2 - 1; i >= 0; i--)
+			_siftDown(heap, heapSize, i, s, pos);
+
+		if (dest.xs.length < total + k)
+			dest._constructArray(total + k + DEFAULT_ARRAY_EXTENSION);
+
+		while (heapSize > 0) {
+			top = heap[0];
+			x = s[top].xs[pos[top]];
+
+			// memberships of all sets at x - limits from the left
+			for (i = 0; i < k; i++)
+				act[i] = _valueBefore(s[i], pos[i], x);
+
+			// visit all points with the lowest x value
+			do {
+				pos[top]++;
+				if (pos[top] == s[top].size)
+					heap[0] = heap[--heapSize];
+				if (heapSize > 0) {
+					_siftDown(heap, heapSize, 0, s, pos);
+					top = heap[0];
+				}
+			} while (heapSize > 0 && s[top].xs[pos[top]] == x);
+
+			// crossings between the previous and the current point
+			if (n > 0) {
+				nc = 0;
+				if (upper)
+					nc = _envelopeCrossings(prev, act, k, 1.0, cross, nc);
+				if (lower)
+					nc = _envelopeCrossings(prev, act, k, -1.0, cross, nc);
+				if (nc > 1)
+					Arrays.sort(cross, 0, nc);
+				for (int c = 0; c < nc; c++) {
+					t = cross[c];
+					if (c > 0 && t == cross[c - 1])
+						continue;
+					if (n + 1 >= dest.xs.length)
+						dest.extendSize(dest.xs.length);
+					dest.xs[n] = px + (x - px) * t;
+					dest.ys[n] = _foldNorm(prev, act, k, t, norm);
+					n++;
+				}
+			}
+
+			if (n + 1 >= dest.xs.length)
+				dest.extendSize(dest.xs.length);
+			dest.xs[n] = x;
+			dest.ys[n] = _foldValues(act, k, norm);
+			n++;
+
+			// limits from the right differ only at vertical steps (points with
+			// equal x) - the step is kept in the result
+			step = false;
+			for (i = 0; i < k; i++) {
+				right[i] = _valueAfter(s[i], pos[i], x);
+				if (right[i] != act[i])
+					step = true;
+			}
+			if (step) {
+				if (n + 1 >= dest.xs.length)
+					dest.extendSize(dest.xs.length);
+				dest.xs[n] = x;
+				dest.ys[n] = _foldValues(right, k, norm);
+				n++;
+			}
+
+			tmp = prev;
+			prev = right;
+			right = tmp;
+			px = x;
+		}
+
+		int max = 0;
+		for (i = 1; i < n; i++) {
+			if (dest.ys[max] < dest.ys[i])
+				max = i;
+		}
+		dest.max_membership.assign(dest.xs[max], dest.ys[max]);
+		dest.min_val = s[0].min_val;
+		dest.max_val = s[0].max_val;
+		for (i = 1; i < k; i++) {
+			if (dest.min_val > s[i].min_val)
+				dest.min_val = s[i].min_val;
+			if (dest.max_val < s[i].max_val)
+				dest.max_val = s[i].max_val;
+		}
+		// working array does not keep input sets
+		Arrays.fill(s, 0, k, null);
+		dest.size = n;
+		dest._changed();
+	}
+
+	// Restores heap order (the lowest x of the next point on top) from position i
+	private static void _siftDown(int[] heap, int heapSize, int i, FuzzySet[] s, int[] pos) {
+		int el = heap[i], child, c;
+		double x = s[el].xs[pos[el]], cx;
+		while ((child = 2 * i + 1) < heapSize) {
+			cx = s[heap[child]].xs[pos[heap[child]]];
+			if (child + 1 < heapSize) {
+				c = heap[child + 1];
+				if (s[c].xs[pos[c]] < cx) {
+					child++;
+					cx = s[c].xs[pos[c]];
+				}
+			}
+			if (cx >= x)
+				break;
+			heap[i] = heap[child];
+			i = child;
+		}
+		heap[i] = el;
+	}
+
+	// Membership at x of a set with first p points visited (x of the last
+	// visited point <= x < x of the next point)
+	private static double _valueAfter(FuzzySet fs, int p, double x) {
+		if (p == 0)
+			return fs.ys[0];
+		if (p >= fs.size)
+			return fs.ys[fs.size - 1];
+		double x1 = fs.xs[p - 1], y1 = fs.ys[p - 1];
+		return (x - x1) * (fs.ys[p] - y1) / (fs.xs[p] - x1) + y1;
+	}
+
+	// Membership at x of a set with first p points visited (x of the last
+	// visited point < x <= x of the next point) - limit from the left
+	private static double _valueBefore(FuzzySet fs, int p, double x) {
+		if (p < fs.size && fs.xs[p] == x)
+			return fs.ys[p];
+		return _valueAfter(fs, p, x);
+	}
+
+	// Folds memberships of all sets at a point (the same order as _foldNorm)
+	private static double _foldValues(double[] v, int k, Norm norm) {
+		double r = v[0];
+		for (int i = 1; i < k; i++)
+			r = norm.calc(v[i], r);
+		return r;
+	}
+
+	// Folds memberships of all sets at position t (0..1) between two points -
+	// each next set is the first argument (operations need not be commutative)
+	private static double _foldNorm(double[] a, double[] b, int k, double t, Norm norm) {
+		double r = a[0] + (b[0] - a[0]) * t;
+		for (int i = 1; i < k; i++)
+			r = norm.calc(a[i] + (b[i] - a[i]) * t, r);
+		return r;
+	}
+
+	// Finds positions t (0 < t < 1) where linear functions from a[i] (t = 0) to
+	// b[i] (t = 1) change the one forming the upper (sign = 1) or the lower (sign
+	// = -1) envelope. Positions are written into cross from index nc, new number
+	// of positions is returned.
+	private static int _envelopeCrossings(double[] a, double[] b, int k, double sign, double[] cross, int nc) {
+		int i, cur = 0, end = 0, next;
+		double t0 = 0.0, t, best, d;
+		for (i = 1; i < k; i++) {
+			// envelope at t = 0 - ties solved by the slope
+			if (sign * a[i] > sign * a[cur] || (a[i] == a[cur] && sign * b[i] > sign * b[cur]))
+				cur = i;
+			if (sign * b[i] > sign * b[end] || (b[i] == b[end] && sign * a[i] > sign * a[end]))
+				end = i;
+		}
+		// envelope is convex (concave), so each function forms it at most once
+		for (int step = 0; step < k && cur != end; step++) {
+			next = -1;
+			best = 1.0;
+			for (i = 0; i < k; i++) {
+				d = sign * ((b[i] - a[i]) - (b[cur] - a[cur])); // relative slope
+				if (d > 0.0) {
+					t = sign * (a[cur] - a[i]) / d;
+					if (t > t0 && (t < best || (t == best && next >= 0
+							&& sign * (b[i] - a[i]) > sign * (b[next] - a[next])))) {
+						best = t;
+						next = i;
+					}
+				}
+			}
+			if (next < 0)
+				break;
+			cross[nc++] = best;
+			cur = next;
+			t0 = best;
+		}
+		return nc;
 	}
 
 	// Defuzzyfication of a set with center of maximum values method (max)
@@ -1690,13 +3725,13 @@ public class FuzzySet {
 		int i, idxL, idxR;
 		idxL = idxR = 0;
 		for (i = 1; i < size; i++) {
-			if (pts[idxL].y < pts[i].y) {
+			if (ys[idxL] < ys[i]) {
 				idxL = idxR = i;
-			} else if (pts[idxL].y == pts[i].y)
+			} else if (ys[idxL] == ys[i])
 				idxR = i;
 		}
 
-		return pts[idxL].x + (pts[idxR].x - pts[idxL].x) / 2.0;
+		return xs[idxL] + (xs[idxR] - xs[idxL]) / 2.0;
 	}
 
 	// Defuzzyfication of a set with center of gravity method
@@ -1707,8 +3742,8 @@ public class FuzzySet {
 		// if first or last point describing a set don't have 0.0 membership
 		// then center of weight doesn't exist => return center value of
 		// availabe description
-		// if ( (pts[0].y != 0.0) || (pts[size-1].y != 0.0) ) return
-		// ((pts[size-1].x - pts[0].x)/2) + pts[0].x;
+		// if ( (ys[0] != 0.0) || (ys[size-1] != 0.0) ) return
+		// ((xs[size-1] - xs[0])/2) + xs[0];
 
 		int i;
 		double dx, dx2, dx3, dy, dd;
@@ -1719,16 +3754,16 @@ public class FuzzySet {
 
 		// loop for all points calculating y=integral(x*f(x))/integral(f(x))
 		for (i = 0; i < (size - 1); i++) {
-			dx = pts[i + 1].x - pts[i].x; // x2-x1
+			dx = xs[i + 1] - xs[i]; // x2-x1
 			if (dx > min_dx) { // to avoid division by 0 or really small values
-				dy = pts[i + 1].y - pts[i].y; // y2-y1
-				x12 = pts[i].x * pts[i].x; // x1^2
-				x13 = x12 * pts[i].x; // x1^3
-				x22 = pts[i + 1].x * pts[i + 1].x; // x2^2
-				x23 = x22 * pts[i + 1].x; // x2^3
+				dy = ys[i + 1] - ys[i]; // y2-y1
+				x12 = xs[i] * xs[i]; // x1^2
+				x13 = x12 * xs[i]; // x1^3
+				x22 = xs[i + 1] * xs[i + 1]; // x2^2
+				x23 = x22 * xs[i + 1]; // x2^3
 				dx2 = x22 - x12; // x2^2 - x1^2
 				dx3 = x23 - x13; // x2^3 - x1^3
-				dd = pts[i + 1].x * pts[i].y - pts[i].x * pts[i + 1].y; // x2*y1
+				dd = xs[i + 1] * ys[i] - xs[i] * ys[i + 1]; // x2*y1
 																		// -
 																		// x1*y2
 
@@ -1742,7 +3777,7 @@ public class FuzzySet {
 		if ((Sdydx2 / 2.0 + Sdddx) != 0.0) // if division possible
 			return (Sdydx3 / 3.0 + Sdddx2 / 2.0) / (Sdydx2 / 2.0 + Sdddx);
 		else
-			return ((pts[size - 1].x - pts[0].x) / 2.0 + pts[0].x); // if not
+			return ((xs[size - 1] - xs[0]) / 2.0 + xs[0]); // if not
 																	// return
 																	// middle
 																	// point
@@ -1765,10 +3800,10 @@ public class FuzzySet {
 		// loop for all points calculating y=integral(x*f(x))/integral(f(x))
 		for (i = 0; i < (size - 1); i++) {
 			// prepare data according to alpha
-			tmpx1 = pts[i].x;
-			tmpx2 = pts[i + 1].x;
-			tmpy1 = pts[i].y;
-			tmpy2 = pts[i + 1].y;
+			tmpx1 = xs[i];
+			tmpx2 = xs[i + 1];
+			tmpy1 = ys[i];
+			tmpy2 = ys[i + 1];
 			// if both start and end point are < alpha then no calculations
 			if (tmpy1 >= alpha || tmpy2 >= alpha) {
 				if (tmpy1 < alpha) { // => calcualte new start point
@@ -1805,7 +3840,7 @@ public class FuzzySet {
 		if ((Sdydx2 / 2.0 + Sdddx) != 0.0) // if division possible
 			return (Sdydx3 / 3.0 + Sdddx2 / 2.0) / (Sdydx2 / 2.0 + Sdddx);
 		else
-			return ((pts[size - 1].x - pts[0].x) / 2.0 + pts[0].x); // if not
+			return ((xs[size - 1] - xs[0]) / 2.0 + xs[0]); // if not
 																	// return
 																	// middle
 																	// point
@@ -1827,10 +3862,10 @@ public class FuzzySet {
 		// loop for all points calculating y=integral(x*f(x))/integral(f(x))
 		for (i = 0; i < (size - 1); i++) {
 			// prepare data according to alpha
-			tmpx1 = pts[i].x;
-			tmpx2 = pts[i + 1].x;
-			tmpy1 = pts[i].y - alpha;
-			tmpy2 = pts[i + 1].y - alpha;
+			tmpx1 = xs[i];
+			tmpx2 = xs[i + 1];
+			tmpy1 = ys[i] - alpha;
+			tmpy2 = ys[i + 1] - alpha;
 			// if both start and end point are < 0.0 then no calculations
 			if (tmpy1 >= 0.0 || tmpy2 >= 0.0) {
 				if (tmpy1 < 0.0) { // => calcualte new start point
@@ -1867,13 +3902,14 @@ public class FuzzySet {
 		if ((Sdydx2 / 2.0 + Sdddx) != 0.0) // if division possible
 			return (Sdydx3 / 3.0 + Sdddx2 / 2.0) / (Sdydx2 / 2.0 + Sdddx);
 		else
-			return ((pts[size - 1].x - pts[0].x) / 2.0 + pts[0].x); // if not
+			return ((xs[size - 1] - xs[0]) / 2.0 + xs[0]); // if not
 																	// return
 																	// middle
 																	// point
 	}
 
 	public String toString() {
+		DecimalFormat fmt = getPrintFormat();
 		String out = "";
 		boolean first = true;
 
@@ -1881,7 +3917,7 @@ public class FuzzySet {
 			if (!first) {
 				out += ", ";
 			}
-			out += "[" + format.format(pts[i].x) + "]" + format.format(pts[i].y);
+			out += "[" + fmt.format(xs[i]) + "]" + fmt.format(ys[i]);
 			first = false;
 		}
 		return out;
@@ -1896,6 +3932,7 @@ public class FuzzySet {
 			TNorm tnorm) {
 		// ZMIANA
 		result.assign(conclusion);
+		result._own();
 		// KONIEC
 		FuzzySet tmpi = new FuzzySet();
 		FuzzySet tmpc = new FuzzySet();
@@ -1908,21 +3945,25 @@ public class FuzzySet {
 
 		for (int i = 0; i < result.size; i++) {
 			// calculate implication
-			level.pts[0].y = result.pts[i].y;
+			level.ys[0] = result.ys[i];
 			processSetsWithNorm(tmpi, premise, level, impl);
 			// cut implication with variable
 			processSetsWithNorm(tmpc, tmpi, input, tnorm);
 			// apply supremum
-			result.pts[i].y = tmpc.getMaximumMembership();
-			if (result.pts[i].y > result.max_membership.y) {
-				result.max_membership.assign(result.pts[i]);
+			result.ys[i] = tmpc.getMaximumMembership();
+			if (result.ys[i] > result.max_membership.y) {
+				result.max_membership.assign(result.xs[i], result.ys[i]);
 			}
 		}
+		result._changed();
 	}
 
 	public static void inferenceZadehForSingleton(FuzzySet result, double input, FuzzySet premise, FuzzySet conclusion,
 			Norm impl) {
-		result = conclusion;
+		// result is calculated on a copy - conclusion (possibly a frozen set
+		// shared by many holders) is not changed
+		result.assign(conclusion);
+		result._own();
 
 		FuzzySet tmpi = new FuzzySet();
 		FuzzySet level = new FuzzySet();
@@ -1934,14 +3975,15 @@ public class FuzzySet {
 
 		for (int i = 0; i < result.size; i++) {
 			// calculate implication
-			level.pts[0].y = result.pts[i].y;
+			level.ys[0] = result.ys[i];
 			processSetsWithNorm(tmpi, premise, level, impl);
 			// apply value for singleton
-			result.pts[i].y = tmpi.getMembership(input);
-			if (result.pts[i].y > result.max_membership.y) {
-				result.max_membership.assign(result.pts[i]);
+			result.ys[i] = tmpi.getMembership(input);
+			if (result.ys[i] > result.max_membership.y) {
+				result.max_membership.assign(result.xs[i], result.ys[i]);
 			}
 		}
+		result._changed();
 	}
 
 	// /Inference for N input variables
@@ -1962,8 +4004,8 @@ public class FuzzySet {
 			_inferenceZadeh(data, number_of_premises - 1);
 			// apply supremum
 			result.setPointY(i, data.max);
-			if (result.pts[i].y > result.max_membership.y) {
-				result.max_membership.assign(result.pts[i]);
+			if (result.ys[i] > result.max_membership.y) {
+				result.max_membership.assign(result.xs[i], result.ys[i]);
 
 			}
 		}
@@ -1975,18 +4017,18 @@ public class FuzzySet {
 				_inferenceZadeh(data, level - 1);
 		} else {
 			// 1. calculate implication
-			data.tmp = data.P[0].pts[data.idx[0]].y;
+			data.tmp = data.P[0].ys[data.idx[0]];
 			// compound premise
 			for (data.tmpi = 1; data.tmpi < data.numP; data.tmpi++) {
-				data.tmp = data.comp.calc(data.tmp, data.P[data.tmpi].pts[data.idx[data.tmpi]].y);
+				data.tmp = data.comp.calc(data.tmp, data.P[data.tmpi].ys[data.idx[data.tmpi]]);
 			}
 			// implication
-			data.tmp = data.impl.calc(data.tmp, data.CZ.pts[data.idxCZ].y);
+			data.tmp = data.impl.calc(data.tmp, data.CZ.ys[data.idxCZ]);
 
 			// 2. cut implication with compound fact
-			data.tmpcut = data.F[0].pts[data.idx[0]].y;
+			data.tmpcut = data.F[0].ys[data.idx[0]];
 			for (data.tmpi = 1; data.tmpi < data.numP; data.tmpi++) {
-				data.tmpcut = data.tnorm.calc(data.tmpcut, data.F[data.tmpi].pts[data.idx[data.tmpi]].y);
+				data.tmpcut = data.tnorm.calc(data.tmpcut, data.F[data.tmpi].ys[data.idx[data.tmpi]]);
 			}
 			data.tmp = data.tnorm.calc(data.tmpcut, data.tmp);
 
@@ -1999,15 +4041,25 @@ public class FuzzySet {
 	// ///for Baldwin reasoning system:
 
 	public static void calcIsTruthFunction(FuzzySet outFun, FuzzySet PSet, FuzzySet QSet, double minDY, double minDX) {
-		_calcIsTruthFunction(outFun, PSet, QSet, minDY, minDX);
+		_calcIsTruthFunction(outFun, PSet, 0.0, 1.0, QSet, minDY, minDX);
 	}
 
 	public static void calcIsTruthFunction(FuzzySet outFun, FuzzySet PSet, FuzzySet QSet) {
 		calcIsTruthFunction(outFun, PSet, QSet, 0.01, 0.001);
 	}
 
-	private static void _calcIsTruthFunction(FuzzySet outFun, FuzzySet PSet, FuzzySet QSet, double minDY,
+	// Version for a shifted/scaled view of P set (view is not copied)
+	public static void calcIsTruthFunction(FuzzySet outFun, FuzzySetView PSet, FuzzySet QSet, double minDY,
 			double minDX) {
+		_calcIsTruthFunction(outFun, PSet.getSet(), PSet.getOffset(), PSet.getScale(), QSet, minDY, minDX);
+	}
+
+	public static void calcIsTruthFunction(FuzzySet outFun, FuzzySetView PSet, FuzzySet QSet) {
+		calcIsTruthFunction(outFun, PSet, QSet, 0.01, 0.001);
+	}
+
+	private static void _calcIsTruthFunction(FuzzySet outFun, FuzzySet PSet, double pOff, double pScale,
+			FuzzySet QSet, double minDY, double minDX) {
 		outFun.ClearSet();
 
 		SPoint Pp = new SPoint();
@@ -2023,7 +4075,7 @@ public class FuzzySet {
 		// przynaleznosci
 		FuzzySet P = new FuzzySet();
 		NullNormForA nn = new NullNormForA();
-		processSetsWithNorm(P, PSet, QSet, nn);
+		_processSetsWithNormEx(P, PSet, pOff, pScale, QSet, 0.0, 1.0, nn);
 
 		// 0. Wyznaczyc poczatkowe Pp i Pk
 		// Pp.x = 0.0; Pk.x = 1.0;
@@ -2064,11 +4116,11 @@ public class FuzzySet {
 		 * //NIEOPTYMALNE - mozna zbierac w szybszy sposob i potem posortowac //AddPoint
 		 * juz jest wiec dlatego uzyty, ale kopiuje pamiec przy wstawianiu w srodek
 		 * tablicy FuzzySet levels(P.size); int i; for(i=0; i<P.size; i++ ){ if (
-		 * (P.pts[i].y!=0.0) && (P.pts[i].y!=1.0) ) //dla 1 i 0 juz dodane wiec tylko
-		 * dla roznych levels.AddPoint( P.pts[i].y , 0.0 ); }
+		 * (P.ys[i]!=0.0) && (P.ys[i]!=1.0) ) //dla 1 i 0 juz dodane wiec tylko
+		 * dla roznych levels.AddPoint( P.ys[i] , 0.0 ); }
 		 * 
 		 * //0b. dla zebranych poziomow oblicz punkty funkcji prawdy for(i=0;
-		 * i<levels.size; i++ ){ Ps.x = levels.pts[i].x; Ps.y = _findMaxQforP( Ps.x
+		 * i<levels.size; i++ ){ Ps.x = levels.xs[i]; Ps.y = _findMaxQforP( Ps.x
 		 * ,P,Q); outFun.AddPoint(Ps.x,Ps.y); }
 		 * 
 		 * //sproboj wpisac wiecej punktow zgodnie ze starym algorytmem //jesli funkcja
@@ -2157,15 +4209,15 @@ public class FuzzySet {
 	}
 
 	private static double _findMaxQforP(double membership, FuzzySet PSet, FuzzySet QSet) {
-		double last_diff = membership - PSet.pts[0].y;
+		double last_diff = membership - PSet.ys[0];
 		double diff, max, tmp;
 		max = 0.0;
 		// Przetworz wszystkie punkty zbioru P
 		for (int i = 0; i < PSet.size; i++) {
-			diff = membership - PSet.pts[i].y;
+			diff = membership - PSet.ys[i];
 			if (diff == 0.0) { // jesli punkt P rowny membership sprawdz czy
 								// maks
-				tmp = QSet.getMembership(PSet.pts[i].x);
+				tmp = QSet.getMembership(PSet.xs[i]);
 				// sprawd� czy maks
 				if (tmp > max) {
 					max = tmp;
@@ -2177,8 +4229,8 @@ public class FuzzySet {
 												// to wyznacz x - w jakim
 												// punkcie
 					// x = (y-y1)(x2-x1)/(y2-y1) + x1
-					tmp = (membership - PSet.pts[i - 1].y) * (PSet.pts[i].x - PSet.pts[i - 1].x)
-							/ (PSet.pts[i].y - PSet.pts[i - 1].y) + PSet.pts[i - 1].x;
+					tmp = (membership - PSet.ys[i - 1]) * (PSet.xs[i] - PSet.xs[i - 1])
+							/ (PSet.ys[i] - PSet.ys[i - 1]) + PSet.xs[i - 1];
 					tmp = QSet.getMembership(tmp);
 					// sprawd� czy maks
 					if (tmp > max) {
@@ -2221,10 +4273,10 @@ public class FuzzySet {
 		if (trFunA.size < 2 || trFunB.size < 2) {
 			return;
 		}
-		if (trFunA.pts[0].x != 0 || trFunB.pts[0].x != 0) {
+		if (trFunA.xs[0] != 0 || trFunB.xs[0] != 0) {
 			return;
 		}
-		if (trFunA.pts[trFunA.size - 1].x != 1 || trFunB.pts[trFunB.size - 1].x != 1) {
+		if (trFunA.xs[trFunA.size - 1] != 1 || trFunB.xs[trFunB.size - 1] != 1) {
 			return;
 		}
 
@@ -2692,10 +4744,10 @@ public class FuzzySet {
 		// Przetworz wszystkie punkty zbioru Q
 		for (int i = 0; i < QSet.size; i++) {
 			// wylicz wartosc implikacji dla x przetwarzanego punktu
-			tmp = impl.calc(QSet.pts[i].x, n);
+			tmp = impl.calc(QSet.xs[i], n);
 			// wylicz przeciecie implikacji i funkcji prawdy w tym punkcie
 			// (tnorma)
-			tmp = tnorm.calc(tmp, QSet.pts[i].y);
+			tmp = tnorm.calc(tmp, QSet.ys[i]);
 			// sprawdz czy wartosc maksymalna (krok supremum)
 			if (tmp > max) {
 				max = tmp;
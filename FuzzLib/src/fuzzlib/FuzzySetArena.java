@@ -0,0 +1,549 @@
+package fuzzlib;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.TreeMap;
+
+import fuzzlib.norms.Norm;
+
+/**
+ * Off-heap storage of many fuzzy sets. Description points of all sets are kept
+ * in one direct (native) buffer, so millions of stored sets do not create heap
+ * objects. A stored set is addressed by a handle (long value) holding offset of
+ * its block in the buffer and a stamp of the allocation. The block holds a
+ * header (the stamp and number of points), x values and y values. A handle of
+ * a freed set (or a set freed twice) is rejected with IllegalArgumentException,
+ * because the stamp in the block does not match any more.
+ *
+ * Membership, defuzzification and norm processing work directly on the stored
+ * data. Freed blocks are reused by allocations of sets with the same or smaller
+ * number of points (the smallest block large enough is taken and the rest of it
+ * stays free). The buffer grows when needed - handles stay valid.
+ *
+ * Objects of this class are not thread safe.
+ */
+public class FuzzySetArena {
+
+	// default capacity of the buffer (number of double values)
+	public static final int DEFAULT_CAPACITY = 1 << 16;
+	// the largest capacity of a direct buffer (number of double values)
+	public static final int MAX_CAPACITY = Integer.MAX_VALUE / Double.BYTES;
+	// handle of an empty set
+	public static final long EMPTY = 0L;
+
+	// number of double values in the header of a block (stamp, number of points)
+	private static final int HEADER = 2;
+
+	// storage of description points
+	private DoubleBuffer slab;
+	// first free position at the end of the buffer
+	private int top;
+	// number of double values in freed blocks
+	private long freed;
+	// freed blocks: number of points -> offsets of blocks
+	private TreeMap<Integer, ArrayDeque<Integer>> free_blocks;
+	// stamp of the last allocation (0 marks a free block)
+	private int stamp;
+
+	/**
+	 * Creates an arena with default initial capacity.
+	 */
+	public FuzzySetArena() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates an arena with given initial capacity.
+	 *
+	 * @param capacity initial number of double values (a set of n points uses 2n
+	 *                 values)
+	 */
+	public FuzzySetArena(int capacity) {
+		if (capacity < 2)
+			capacity = 2;
+		else if (capacity > MAX_CAPACITY)
+			capacity = MAX_CAPACITY;
+		slab = _newBuffer(capacity);
+		top = 0;
+		freed = 0;
+		free_blocks = new TreeMap<Integer, ArrayDeque<Integer>>();
+		stamp = 0;
+	}
+
+	private static DoubleBuffer _newBuffer(int capacity) {
+		return ByteBuffer.allocateDirect(capacity * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+	}
+
+	/**
+	 * @param handle handle of a stored set
+	 * @return number of points of a stored set
+	 */
+	public int getSize(long handle) {
+		if (handle == EMPTY)
+			return 0;
+		return _size(_check(handle));
+	}
+
+	// Checks a handle (the stamp in the block must match) and returns offset of
+	// its block
+	private int _check(long handle) {
+		int offset = (int) (handle >>> 32);
+		if ((int) handle == 0 || offset > top - HEADER || slab.get(offset) != (int) handle)
+			throw new IllegalArgumentException("Invalid or freed fuzzy set handle");
+		return offset;
+	}
+
+	private int _size(int offset) {
+		return (int) slab.get(offset + 1);
+	}
+
+	// Number of double values of a block of a set of n points
+	private static int _length(int n) {
+		return HEADER + 2 * n;
+	}
+
+	// Writes the header of a reserved block and returns a new handle
+	private long _handle(int offset, int n) {
+		if (++stamp == 0)
+			stamp = 1;
+		slab.put(offset, stamp);
+		slab.put(offset + 1, n);
+		return ((long) offset << 32) | (stamp & 0xFFFFFFFFL);
+	}
+
+	// Puts a range of the buffer on the list of freed blocks. The range at the
+	// end of the buffer is given back to it, a range too small for a set of one
+	// point is lost.
+	private void _release(int offset, int length) {
+		if (offset + length == top) {
+			top = offset;
+			return;
+		}
+		int n = (length - HEADER) / 2;
+		if (n < 1)
+			return;
+		slab.put(offset, 0.0);
+		slab.put(offset + 1, n);
+		ArrayDeque<Integer> list = free_blocks.get(n);
+		if (list == null) {
+			list = new ArrayDeque<Integer>();
+			free_blocks.put(n, list);
+		}
+		list.push(offset);
+		freed += length;
+	}
+
+	// Reserves a block for a set of n points, returns its offset. The smallest
+	// freed block large enough is used, the rest of it stays free.
+	private int _reserve(int n) {
+		Map.Entry<Integer, ArrayDeque<Integer>> entry = free_blocks.ceilingEntry(n);
+		if (entry != null) {
+			int size = entry.getKey();
+			ArrayDeque<Integer> list = entry.getValue();
+			int offset = list.pop();
+			if (list.isEmpty())
+				free_blocks.remove(size);
+			freed -= _length(size);
+			if (size > n)
+				_release(offset + _length(n), 2 * (size - n));
+			return offset;
+		}
+
+		long need = (long) top + _length(n);
+		if (need > slab.capacity()) {
+			if (need > MAX_CAPACITY)
+				throw new IllegalStateException("Fuzzy set arena is full");
+			long cap = 2L * slab.capacity();
+			if (cap < need)
+				cap = need;
+			if (cap > MAX_CAPACITY)
+				cap = MAX_CAPACITY;
+			DoubleBuffer tmp = _newBuffer((int) cap);
+			DoubleBuffer src = slab.duplicate();
+			src.position(0).limit(top);
+			tmp.put(src);
+			slab = tmp;
+		}
+		int offset = top;
+		top += _length(n);
+		return offset;
+	}
+
+	/**
+	 * Stores a copy of a fuzzy set.
+	 *
+	 * @param fs fuzzy set to store
+	 * @return handle of a stored set
+	 */
+	public long allocate(FuzzySet fs) {
+		int n = fs.size;
+		if (n == 0)
+			return EMPTY;
+		int offset = _reserve(n), xo = offset + HEADER, yo = xo + n;
+		for (int i = 0; i < n; i++) {
+			slab.put(xo + i, fs.xs[i]);
+			slab.put(yo + i, fs.ys[i]);
+		}
+		return _handle(offset, n);
+	}
+
+	/**
+	 * Stores copies of many fuzzy sets.
+	 *
+	 * @param sets fuzzy sets to store
+	 * @return handles of stored sets (in order of input sets)
+	 */
+	public long[] allocate(FuzzySet[] sets) {
+		long[] handles = new long[sets.length];
+		for (int i = 0; i < sets.length; i++) {
+			handles[i] = allocate(sets[i]);
+		}
+		return handles;
+	}
+
+	/**
+	 * Frees a stored set. The block is reused by next allocations. The handle
+	 * must not be used any more.
+	 *
+	 * @param handle handle of a stored set
+	 * @throws IllegalArgumentException if the handle is invalid or already freed
+	 */
+	public void free(long handle) {
+		if (handle == EMPTY)
+			return;
+		int offset = _check(handle);
+		slab.put(offset, 0.0);
+		_release(offset, _length(_size(offset)));
+	}
+
+	/**
+	 * Frees many stored sets.
+	 *
+	 * @param handles handles of stored sets
+	 */
+	public void free(long[] handles) {
+		for (int i = 0; i < handles.length; i++) {
+			free(handles[i]);
+		}
+	}
+
+	/**
+	 * Frees all stored sets. All handles become invalid. Memory of the buffer is
+	 * kept for new sets.
+	 */
+	public void clear() {
+		top = 0;
+		freed = 0;
+		free_blocks.clear();
+	}
+
+	/**
+	 * @return number of double values used by stored sets (with headers of blocks
+	 *         and small lost parts of split blocks)
+	 */
+	public long getUsed() {
+		return top - freed;
+	}
+
+	/**
+	 * @return current capacity of the buffer (number of double values)
+	 */
+	public int getCapacity() {
+		return slab.capacity();
+	}
+
+	/**
+	 * @param handle handle of a stored set
+	 * @param n      index of point
+	 * @return x value of n-th point
+	 */
+	public double getPointX(long handle, int n) {
+		return slab.get(_check(handle) + HEADER + n);
+	}
+
+	/**
+	 * @param handle handle of a stored set
+	 * @param n      index of point
+	 * @return y value of n-th point
+	 */
+	public double getPointY(long handle, int n) {
+		int offset = _check(handle);
+		return slab.get(offset + HEADER + _size(offset) + n);
+	}
+
+	/**
+	 * Copies a stored set into a regular fuzzy set.
+	 *
+	 * @param handle handle of a stored set
+	 * @param dest   destination set (previous description is lost)
+	 * @return destination set
+	 */
+	public FuzzySet load(long handle, FuzzySet dest) {
+		dest.ClearSet();
+		if (handle == EMPTY)
+			return dest;
+		int offset = _check(handle), n = _size(offset);
+		int xo = offset + HEADER, yo = xo + n;
+		if (dest.xs.length < n) {
+			dest.xs = new double[n + FuzzySet.DEFAULT_ARRAY_EXTENSION];
+			dest.ys = new double[n + FuzzySet.DEFAULT_ARRAY_EXTENSION];
+		}
+		for (int i = 0; i < n; i++) {
+			dest.xs[i] = slab.get(xo + i);
+			dest.ys[i] = slab.get(yo + i);
+			if (dest.max_membership.y < dest.ys[i])
+				dest.max_membership.assign(dest.xs[i], dest.ys[i]);
+		}
+		dest.size = n;
+		dest.min_val = dest.xs[0];
+		dest.max_val = dest.xs[n - 1];
+		dest._changed();
+		return dest;
+	}
+
+	/**
+	 * Calculates membership of given x value in a stored set.
+	 *
+	 * @param handle handle of a stored set
+	 * @param x      x value
+	 * @return membership
+	 */
+	public double getMembership(long handle, double x) {
+		if (handle == EMPTY)
+			return 0.0;
+		int offset = _check(handle), n = _size(offset);
+		int xo = offset + HEADER, yo = xo + n;
+		if (x <= slab.get(xo))
+			return slab.get(yo);
+		if (x >= slab.get(xo + n - 1))
+			return slab.get(yo + n - 1);
+
+		int left = 0, right = n - 1, width, act;
+		while ((width = right - left) > 1) {
+			act = left + width / 2;
+			if (x < slab.get(xo + act))
+				right = act;
+			else
+				left = act;
+		}
+
+		double x1 = slab.get(xo + left), y1 = slab.get(yo + left);
+		return (x - x1) * (slab.get(yo + right) - y1) / (slab.get(xo + right) - x1) + y1;
+	}
+
+	/**
+	 * @param handle handle of a stored set
+	 * @return maximum membership of a stored set (-1 for an empty set)
+	 */
+	public double getMaximumMembership(long handle) {
+		if (handle == EMPTY)
+			return -1.0;
+		int offset = _check(handle), n = _size(offset);
+		int yo = offset + HEADER + n;
+		double max = -1.0;
+		for (int i = 0; i < n; i++) {
+			if (max < slab.get(yo + i))
+				max = slab.get(yo + i);
+		}
+		return max;
+	}
+
+	/**
+	 * Defuzzyfication of a stored set with center of gravity method (the same as
+	 * FuzzySet.DeFuzzyfyEx with DefuzMethod.DF_COG).
+	 *
+	 * @param handle handle of a stored set
+	 * @param min_dx segments narrower than this value are skipped
+	 * @return defuzzified value
+	 */
+	public double DeFuzzyfy(long handle, double min_dx) {
+		if (handle == EMPTY)
+			return 0.0;
+		int offset = _check(handle), n = _size(offset);
+		if (n < 2)
+			return 0.0;
+		int xo = offset + HEADER, yo = xo + n;
+
+		double x1, x2, y1, y2, dx, dx2, dx3, dy, dd;
+		double Sdydx3, Sdddx2, Sdydx2, Sdddx;
+		Sdydx3 = Sdddx2 = Sdydx2 = Sdddx = 0.0;
+
+		x2 = slab.get(xo);
+		y2 = slab.get(yo);
+		for (int i = 1; i < n; i++) {
+			x1 = x2;
+			y1 = y2;
+			x2 = slab.get(xo + i);
+			y2 = slab.get(yo + i);
+			dx = x2 - x1;
+			if (dx > min_dx) {
+				dy = y2 - y1;
+				dx2 = x2 * x2 - x1 * x1;
+				dx3 = x2 * x2 * x2 - x1 * x1 * x1;
+				dd = x2 * y1 - x1 * y2;
+
+				Sdydx3 += dy * dx3 / dx;
+				Sdddx2 += dd * dx2 / dx;
+				Sdydx2 += dy * dx2 / dx;
+				Sdddx += dd * dx / dx;
+			}
+		}
+
+		if ((Sdydx2 / 2.0 + Sdddx) != 0.0)
+			return (Sdydx3 / 3.0 + Sdddx2 / 2.0) / (Sdydx2 / 2.0 + Sdddx);
+		else
+			return (slab.get(xo + n - 1) - slab.get(xo)) / 2.0 + slab.get(xo);
+	}
+
+	/**
+	 * Defuzzyfication of a stored set with center of gravity method.
+	 *
+	 * @param handle handle of a stored set
+	 * @return defuzzified value
+	 */
+	public double DeFuzzyfy(long handle) {
+		return DeFuzzyfy(handle, 0.000001);
+	}
+
+	/**
+	 * Processes two stored sets with a norm and stores the result as a new set.
+	 * Points are merged directly in the buffer (as FuzzySet.mergeWithNorm does),
+	 * the result is written into a block reserved for the largest possible
+	 * result and the unused part of the block is given back. Short-circuits of
+	 * FuzzySet.processSetsWithNorm for T-Norms are not used, so the result may
+	 * keep more points (membership function is the same).
+	 *
+	 * @param aHandle handle of the first set
+	 * @param bHandle handle of the second set
+	 * @param norm    norm operation
+	 * @return handle of the result (EMPTY if any input set is empty)
+	 */
+	public long processSetsWithNorm(long aHandle, long bHandle, Norm norm) {
+		if (aHandle == EMPTY || bHandle == EMPTY)
+			return EMPTY;
+		int na = _size(_check(aHandle)), nb = _size(_check(bHandle));
+		int bound = FuzzySet.getMergeBound(na, nb);
+
+		// reserve before reading offsets - the buffer may be replaced
+		int offset = _reserve(bound), xo = offset + HEADER;
+		int ao = _check(aHandle) + HEADER, bo = _check(bHandle) + HEADER;
+		int n = _mergeWithNorm(ao, ao + na, na, bo, bo + nb, nb, norm, xo, xo + bound);
+
+		// move y values next to x values and give back the rest of the block
+		for (int i = 0; i < n; i++) {
+			slab.put(xo + n + i, slab.get(xo + bound + i));
+		}
+		_release(offset + _length(n), 2 * (bound - n));
+		return _handle(offset, n);
+	}
+
+	// Merge kernel of FuzzySet.mergeWithNorm working on ranges of the buffer
+	// (arguments are positions of x and y values). Current segment of each
+	// function is kept as begin (xb,yb) and end (xe,ye) points.
+	private int _mergeWithNorm(int ax, int ay, int na, int bx, int by, int nb, Norm norm, int outX, int outY) {
+		DoubleBuffer b = slab;
+		double axb, ayb, axe, aye, bxb, byb, bxe, bye;
+		double last_dif, act_dif, o1, o2, cy;
+		int posA, posB, out_counter;
+		boolean A_NotDone, B_NotDone;
+
+		A_NotDone = B_NotDone = true;
+
+		// the first point
+		posA = posB = 0;
+		out_counter = 0;
+		axb = b.get(ax);
+		ayb = b.get(ay);
+		bxb = b.get(bx);
+		byb = b.get(by);
+		if (axb < bxb) {
+			bxb = axb;
+			if (posA < (na - 1))
+				posA++;
+			else
+				A_NotDone = false;
+		} else {
+			if (axb > bxb) {
+				axb = bxb;
+				if (posB < (nb - 1))
+					posB++;
+				else
+					B_NotDone = false;
+			} else {
+				if (posA < (na - 1))
+					posA++;
+				else
+					A_NotDone = false;
+				if (posB < (nb - 1))
+					posB++;
+				else
+					B_NotDone = false;
+			}
+		}
+		last_dif = act_dif = ayb - byb;
+		b.put(outX + out_counter, axb);
+		b.put(outY + out_counter, norm.calc(ayb, byb));
+		out_counter++;
+
+		// loop through all points in both sets
+		while (A_NotDone || B_NotDone) {
+			axe = b.get(ax + posA);
+			aye = b.get(ay + posA);
+			bxe = b.get(bx + posB);
+			bye = b.get(by + posB);
+			if (A_NotDone == false)
+				axe = bxe;
+			if (B_NotDone == false)
+				bxe = axe + 1.0;
+			if (axe < bxe) {
+				bye = ((axe - bxb) * (bye - byb) / (bxe - bxb)) + byb;
+				bxe = axe;
+				if (posA < (na - 1))
+					posA++;
+				else
+					A_NotDone = false;
+			} else {
+				if (axe > bxe) {
+					aye = ((bxe - axb) * (aye - ayb) / (axe - axb)) + ayb;
+					axe = bxe;
+					if (posB < (nb - 1))
+						posB++;
+					else
+						B_NotDone = false;
+				} else {
+					if (posA < (na - 1))
+						posA++;
+					else
+						A_NotDone = false;
+					if (posB < (nb - 1))
+						posB++;
+					else
+						B_NotDone = false;
+				}
+			}
+			act_dif = aye - bye;
+			// crossing of membership functions
+			if ((act_dif * last_dif) < 0.0) {
+				o1 = ayb - byb;
+				o2 = bye - aye;
+				cy = ((aye * byb) - (ayb * bye)) / (-1.0 * (o1 + o2));
+				b.put(outX + out_counter, ((axe * o1) + (axb * o2)) / (o1 + o2));
+				b.put(outY + out_counter, norm.calc(cy, cy));
+				out_counter++;
+			}
+			b.put(outX + out_counter, axe);
+			b.put(outY + out_counter, norm.calc(aye, bye));
+			out_counter++;
+			axb = axe;
+			ayb = aye;
+			bxb = bxe;
+			byb = bye;
+			last_dif = act_dif;
+		}
+		return out_counter;
+	}
+
+}
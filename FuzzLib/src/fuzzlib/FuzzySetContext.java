@@ -0,0 +1,101 @@
+package fuzzlib;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+
+import fuzzlib.creators.OperationCreator;
+import fuzzlib.negs.Negation;
+import fuzzlib.norms.SNorm;
+import fuzzlib.norms.TNorm;
+
+/**
+ * Immutable defaults of fuzzy sets: operations (t-norm, s-norm, negation),
+ * defuzzyfication parameters and print format. A fuzzy set keeps a reference to
+ * its context instead of creating its own operation objects and print format,
+ * so creating a set allocates little more than its arrays of points.
+ *
+ * Operation objects of a context are shared by all sets created with it.
+ * DecimalFormat is mutable and not thread safe, so a set creates its own print
+ * format from the pattern of the context when the format is needed for the
+ * first time.
+ */
+public final class FuzzySetContext {
+
+	/**
+	 * Default context: minimum t-norm, maximum s-norm, Zadeh negation, center of
+	 * gravity defuzzyfication and "#.##" print format.
+	 */
+	public static final FuzzySetContext DEFAULT = new FuzzySetContext(TNorm.TN_MINIMUM, SNorm.SN_MAXIMUM,
+			Negation.NEG_ZADEH, DefuzMethod.DF_COG, 0.0, 0.000001, "#.##");
+
+	private final TNorm tnorm;
+	private final SNorm snorm;
+	private final Negation neg;
+
+	private final short def_defuz;
+	private final double def_alpha;
+	private final double def_mindx;
+
+	private final String format_pattern;
+	private final DecimalFormatSymbols format_symbols;
+
+	/**
+	 * Creates a context.
+	 *
+	 * @param tnormType type of default t-norm
+	 * @param snormType type of default s-norm
+	 * @param negType   type of default negation
+	 * @param defuz     default defuzzyfication method (DefuzMethod)
+	 * @param alpha     default alpha parameter of defuzzyfication
+	 * @param min_dx    default minimum dx parameter of defuzzyfication
+	 * @param format    pattern of print format (see DecimalFormat)
+	 */
+	public FuzzySetContext(short tnormType, short snormType, short negType, short defuz, double alpha,
+			double min_dx, String format) {
+		tnorm = OperationCreator.newTNorm(tnormType);
+		snorm = OperationCreator.newSNorm(snormType);
+		neg = OperationCreator.newNegation(negType);
+		def_defuz = defuz;
+		def_alpha = alpha;
+		def_mindx = min_dx;
+		format_pattern = format;
+		format_symbols = new DecimalFormatSymbols();
+		format_symbols.setDecimalSeparator('.');
+	}
+
+	public TNorm getTNorm() {
+		return tnorm;
+	}
+
+	public SNorm getSNorm() {
+		return snorm;
+	}
+
+	public Negation getNegation() {
+		return neg;
+	}
+
+	public short getDefuzzyficationMethod() {
+		return def_defuz;
+	}
+
+	public double getDefuzzyficationAlpha() {
+		return def_alpha;
+	}
+
+	public double getDefuzzyficationMinDx() {
+		return def_mindx;
+	}
+
+	public String getPrintFormatPattern() {
+		return format_pattern;
+	}
+
+	/**
+	 * @return new print format object with the pattern of this context
+	 */
+	public DecimalFormat newPrintFormat() {
+		return new DecimalFormat(format_pattern, format_symbols);
+	}
+
+}
@@ -0,0 +1,283 @@
+package fuzzlib;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/**
+ * Binary file of many fuzzy sets (a library of membership functions) read by
+ * memory mapping. Sets of an opened library are read-only views of the mapped
+ * file (see MappedFuzzySet) - opening does not parse nor copy description
+ * points, so libraries of hundreds of thousands of sets are available at once.
+ *
+ * Layout of the file (little-endian):
+ * <ul>
+ * <li>header (40 bytes): magic "FZLB", format version, number of sets, flags
+ * (0), then positions of the set table, the string area and the point
+ * area</li>
+ * <li>set table - 32 bytes for each set: position of its points in the point
+ * area (in doubles), number of points, 0, position and length of identifier and
+ * description in the string area</li>
+ * <li>string area - identifiers and descriptions (UTF-8)</li>
+ * <li>point area (aligned to 8 bytes) - for each set its x values followed by
+ * its y values</li>
+ * </ul>
+ * The whole file has to be smaller than 2 GB (one mapping).
+ *
+ * After creation the object is not changed, so it can be shared between
+ * threads.
+ */
+public class FuzzySetLibrary {
+
+	// "FZLB" read as a little-endian int
+	private static final int MAGIC = 0x424C5A46;
+	/** Version of the format written by this class. */
+	public static final int FORMAT_VERSION = 1;
+
+	private static final int HEADER_SIZE = 40;
+	private static final int ENTRY_SIZE = 32;
+	// size of the write buffer
+	private static final int WRITE_BUFFER = 1 << 16;
+
+	// mapped file
+	private final ByteBuffer map;
+	// point area of the mapped file
+	private final DoubleBuffer points;
+	// number of sets
+	private final int count;
+	// positions of the set table and the string area
+	private final int table_pos, strings_pos;
+
+	// index of identifiers (built on first search)
+	private HashMap<String, Integer> index;
+
+	/**
+	 * Opens a library file. The file is mapped into memory, only the header and
+	 * the set table are checked.
+	 *
+	 * @param file library file
+	 * @throws IOException if the file can not be read or it is not a valid library
+	 *                     file
+	 */
+	public FuzzySetLibrary(File file) throws IOException {
+		try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			long len = ch.size();
+			if (len > Integer.MAX_VALUE)
+				throw new IOException("Fuzzy set library '" + file + "' is too large");
+			if (len < HEADER_SIZE)
+				throw new IOException("'" + file + "' is not a fuzzy set library");
+			// mapping stays valid after the channel is closed
+			map = ch.map(FileChannel.MapMode.READ_ONLY, 0, len).order(ByteOrder.LITTLE_ENDIAN);
+		}
+		int size = map.capacity();
+		if (map.getInt(0) != MAGIC)
+			throw new IOException("'" + file + "' is not a fuzzy set library");
+		int version = map.getInt(4);
+		if (version < 1 || version > FORMAT_VERSION)
+			throw new IOException("Unsupported version " + version + " of fuzzy set library '" + file + "'");
+		count = map.getInt(8);
+		long tp = map.getLong(16), sp = map.getLong(24), dp = map.getLong(32);
+		if (count < 0 || tp != HEADER_SIZE || sp != tp + (long) count * ENTRY_SIZE || dp < sp || dp > size
+				|| dp % Double.BYTES != 0)
+			throw new IOException("Corrupted header of fuzzy set library '" + file + "'");
+		table_pos = (int) tp;
+		strings_pos = (int) sp;
+		points = map.duplicate().position((int) dp).slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+
+		// each set has to lie inside the file
+		int strings_len = (int) (dp - sp);
+		for (int i = 0; i < count; i++) {
+			int e = table_pos + i * ENTRY_SIZE;
+			long pos = map.getLong(e);
+			int n = map.getInt(e + 8);
+			if (pos < 0 || n < 0 || pos + 2L * n > points.capacity() || !_inside(map.getInt(e + 16),
+					map.getInt(e + 20), strings_len) || !_inside(map.getInt(e + 24), map.getInt(e + 28), strings_len))
+				throw new IOException("Corrupted entry " + i + " of fuzzy set library '" + file + "'");
+		}
+	}
+
+	private static boolean _inside(int pos, int len, int size) {
+		return pos >= 0 && len >= 0 && (long) pos + len <= size;
+	}
+
+	/**
+	 * Writes fuzzy sets into a library file (previous content of the file is
+	 * lost).
+	 *
+	 * @param file  library file
+	 * @param sets  fuzzy sets
+	 * @param count number of sets to write
+	 * @throws IOException if the file can not be written or the library would be
+	 *                     too large
+	 */
+	public static void write(File file, FuzzySet[] sets, int count) throws IOException {
+		byte[][] ids = new byte[count][], dess = new byte[count][];
+		long strings_len = 0, data_len = 0;
+		for (int i = 0; i < count; i++) {
+			ids[i] = sets[i].id.getBytes(StandardCharsets.UTF_8);
+			dess[i] = sets[i].des.getBytes(StandardCharsets.UTF_8);
+			strings_len += ids[i].length + dess[i].length;
+			data_len += 2L * sets[i].size;
+		}
+		long sp = HEADER_SIZE + (long) count * ENTRY_SIZE;
+		long dp = (sp + strings_len + Double.BYTES - 1) / Double.BYTES * Double.BYTES;
+		if (dp + data_len * Double.BYTES > Integer.MAX_VALUE)
+			throw new IOException("Fuzzy set library is too large");
+
+		try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+				StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buf = ByteBuffer.allocate(WRITE_BUFFER).order(ByteOrder.LITTLE_ENDIAN);
+			buf.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(count).putInt(0);
+			buf.putLong(HEADER_SIZE).putLong(sp).putLong(dp);
+
+			int spos = 0;
+			long ppos = 0;
+			for (int i = 0; i < count; i++) {
+				_reserve(ch, buf, ENTRY_SIZE);
+				buf.putLong(ppos).putInt(sets[i].size).putInt(0);
+				buf.putInt(spos).putInt(ids[i].length);
+				spos += ids[i].length;
+				buf.putInt(spos).putInt(dess[i].length);
+				spos += dess[i].length;
+				ppos += 2L * sets[i].size;
+			}
+			for (int i = 0; i < count; i++) {
+				_putBytes(ch, buf, ids[i]);
+				_putBytes(ch, buf, dess[i]);
+			}
+			for (long p = sp + strings_len; p < dp; p++) {
+				_reserve(ch, buf, 1);
+				buf.put((byte) 0);
+			}
+			for (int i = 0; i < count; i++) {
+				FuzzySet fs = sets[i];
+				for (int j = 0; j < fs.size; j++) {
+					_reserve(ch, buf, Double.BYTES);
+					buf.putDouble(fs.xs[j]);
+				}
+				for (int j = 0; j < fs.size; j++) {
+					_reserve(ch, buf, Double.BYTES);
+					buf.putDouble(fs.ys[j]);
+				}
+			}
+			_flush(ch, buf);
+		}
+	}
+
+	/**
+	 * Writes fuzzy sets into a library file (previous content of the file is
+	 * lost).
+	 *
+	 * @param file library file
+	 * @param sets fuzzy sets
+	 * @throws IOException if the file can not be written or the library would be
+	 *                     too large
+	 */
+	public static void write(File file, FuzzySet[] sets) throws IOException {
+		write(file, sets, sets.length);
+	}
+
+	// Makes room for n bytes in the write buffer
+	private static void _reserve(FileChannel ch, ByteBuffer buf, int n) throws IOException {
+		if (buf.remaining() < n)
+			_flush(ch, buf);
+	}
+
+	private static void _putBytes(FileChannel ch, ByteBuffer buf, byte[] b) throws IOException {
+		int off = 0;
+		while (off < b.length) {
+			_reserve(ch, buf, 1);
+			int len = Math.min(buf.remaining(), b.length - off);
+			buf.put(b, off, len);
+			off += len;
+		}
+	}
+
+	private static void _flush(FileChannel ch, ByteBuffer buf) throws IOException {
+		buf.flip();
+		while (buf.hasRemaining())
+			ch.write(buf);
+		buf.clear();
+	}
+
+	/**
+	 * @return number of sets in the library
+	 */
+	public final int getSetCount() {
+		return count;
+	}
+
+	// Decodes a string from the string area (entry field at a given offset)
+	private String _string(int nr, int field) {
+		int e = table_pos + nr * ENTRY_SIZE + field;
+		byte[] b = new byte[map.getInt(e + 4)];
+		ByteBuffer src = map.duplicate();
+		src.position(strings_pos + map.getInt(e));
+		src.get(b);
+		return new String(b, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * @param nr index of a set
+	 * @return identifier of nr-th set
+	 */
+	public String getId(int nr) {
+		return _string(nr, 16);
+	}
+
+	/**
+	 * @param nr index of a set
+	 * @return description of nr-th set
+	 */
+	public String getDescription(int nr) {
+		return _string(nr, 24);
+	}
+
+	/**
+	 * Finds a set by its identifier. Index of identifiers is built by the first
+	 * call.
+	 *
+	 * @param id identifier of a set
+	 * @return index of the first set with given identifier, -1 if there is no such
+	 *         set
+	 */
+	public synchronized int indexOf(String id) {
+		if (index == null) {
+			index = new HashMap<String, Integer>();
+			for (int i = count - 1; i >= 0; i--)
+				index.put(getId(i), i);
+		}
+		Integer nr = index.get(id);
+		return nr == null ? -1 : nr;
+	}
+
+	/**
+	 * Returns a read-only view of a set. Points are not copied - the view reads
+	 * the mapped file.
+	 *
+	 * @param nr index of a set
+	 * @return view of nr-th set
+	 */
+	public MappedFuzzySet getSet(int nr) {
+		int e = table_pos + nr * ENTRY_SIZE;
+		return new MappedFuzzySet(this, nr, points, (int) map.getLong(e), map.getInt(e + 8));
+	}
+
+	/**
+	 * Copies a set into a regular fuzzy set.
+	 *
+	 * @param nr   index of a set
+	 * @param dest destination set (previous description is lost)
+	 * @return destination set
+	 */
+	public FuzzySet load(int nr, FuzzySet dest) {
+		return getSet(nr).load(dest);
+	}
+
+}
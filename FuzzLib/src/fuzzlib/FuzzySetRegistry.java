@@ -0,0 +1,107 @@
+package fuzzlib;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Registry of distinct shapes of fuzzy sets (hash-consing). Sets equal in
+ * structure (see FuzzySet.equalsStructure) are interned into frozen sets
+ * sharing one description and its derived data (slopes, area, centroid,
+ * indexes). Each interned set keeps its own name, description and operations.
+ *
+ * Every distinct shape gets a number (0, 1, 2, ... in order of registration),
+ * so results calculated for a set can be cached per shape and reused for all
+ * sets of the same shape.
+ */
+public class FuzzySetRegistry {
+
+	// key of a shape - structural hash and equality of a fuzzy set
+	private static final class ShapeKey {
+		final FuzzySet fs;
+		final int hash;
+
+		ShapeKey(FuzzySet fs) {
+			this.fs = fs;
+			hash = fs.structureHashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof ShapeKey))
+				return false;
+			ShapeKey k = (ShapeKey) o;
+			return hash == k.hash && fs.equalsStructure(k.fs);
+		}
+	}
+
+	// number of each registered shape
+	private final HashMap<ShapeKey, Integer> index = new HashMap<ShapeKey, Integer>();
+	// frozen set holding each shape (first interned set of the shape)
+	private final ArrayList<FrozenFuzzySet> shapes = new ArrayList<FrozenFuzzySet>();
+
+	public FuzzySetRegistry() {
+	}
+
+	/**
+	 * Interns a fuzzy set. If no set of the same shape is registered, frozen copy
+	 * of the set is registered and returned. Otherwise returned frozen set shares
+	 * description and derived data with the registered one (or it is the
+	 * registered set itself if fs is that set).
+	 *
+	 * @param fs fuzzy set
+	 * @return frozen set equal in structure to fs, with name, description and
+	 *         operations of fs
+	 */
+	public FrozenFuzzySet intern(FuzzySet fs) {
+		Integer nr = index.get(new ShapeKey(fs));
+		if (nr == null) {
+			FrozenFuzzySet f = fs.freeze();
+			index.put(new ShapeKey(f), shapes.size());
+			shapes.add(f);
+			return f;
+		}
+		FrozenFuzzySet shape = shapes.get(nr);
+		if (fs == shape)
+			return shape;
+		return new FrozenFuzzySet(fs, shape);
+	}
+
+	/**
+	 * @param fs fuzzy set
+	 * @return number of the shape of a given set, -1 if the shape is not
+	 *         registered
+	 */
+	public int getShapeNumber(FuzzySet fs) {
+		Integer nr = index.get(new ShapeKey(fs));
+		return nr == null ? -1 : nr;
+	}
+
+	/**
+	 * @param nr number of a shape
+	 * @return frozen set holding nr-th shape
+	 */
+	public FrozenFuzzySet getShape(int nr) {
+		return shapes.get(nr);
+	}
+
+	/**
+	 * @return number of distinct shapes
+	 */
+	public int getSize() {
+		return shapes.size();
+	}
+
+	/**
+	 * Removes all shapes. Sets interned earlier are not changed.
+	 */
+	public void clear() {
+		index.clear();
+		shapes.clear();
+	}
+
+}
@@ -0,0 +1,178 @@
+package fuzzlib;
+
+/**
+ * Shifted and scaled view of a fuzzy set. Membership function of the view is
+ * f((x - offset) / scale), where f is membership function of the underlying
+ * set - each point (x,y) of the set is seen as (x * scale + offset, y). Points
+ * are not copied, so creating or moving a view takes constant time. Changes of
+ * the underlying set are visible through the view.
+ *
+ * Views are accepted by FuzzySet.processSetsWithNorm and
+ * FuzzySet.calcIsTruthFunction. Membership and defuzzyfication are calculated
+ * on the underlying set.
+ */
+public class FuzzySetView {
+
+	// underlying fuzzy set
+	private FuzzySet set;
+	// shift of x values
+	private double offset;
+	// scale of x values (> 0)
+	private double scale;
+
+	/**
+	 * Creates an empty view (of no set).
+	 */
+	public FuzzySetView() {
+		set = null;
+		offset = 0.0;
+		scale = 1.0;
+	}
+
+	/**
+	 * Creates a view of a set shifted by a given value.
+	 *
+	 * @param set    underlying fuzzy set
+	 * @param offset shift of x values
+	 */
+	public FuzzySetView(FuzzySet set, double offset) {
+		this(set, offset, 1.0);
+	}
+
+	/**
+	 * Creates a view of a set scaled and then shifted.
+	 *
+	 * @param set    underlying fuzzy set
+	 * @param offset shift of x values
+	 * @param scale  scale of x values. If the parameter value is <= 0 then it is
+	 *               set to 1.
+	 */
+	public FuzzySetView(FuzzySet set, double offset, double scale) {
+		set(set, offset, scale);
+	}
+
+	/**
+	 * Changes the underlying set and the transformation (O(1)).
+	 *
+	 * @param set    underlying fuzzy set
+	 * @param offset shift of x values
+	 * @param scale  scale of x values. If the parameter value is <= 0 then it is
+	 *               set to 1.
+	 * @return reference to this object
+	 */
+	public FuzzySetView set(FuzzySet set, double offset, double scale) {
+		this.set = set;
+		this.offset = offset;
+		this.scale = scale > 0.0 ? scale : 1.0;
+		return this;
+	}
+
+	/**
+	 * @return underlying fuzzy set
+	 */
+	public FuzzySet getSet() {
+		return set;
+	}
+
+	/**
+	 * @return shift of x values
+	 */
+	public double getOffset() {
+		return offset;
+	}
+
+	/**
+	 * @return scale of x values
+	 */
+	public double getScale() {
+		return scale;
+	}
+
+	/**
+	 * @return number of description points
+	 */
+	public int getSize() {
+		return set.size;
+	}
+
+	/**
+	 * @param n index of point
+	 * @return x value of n-th point of the view
+	 */
+	public double getPointX(int n) {
+		return set.xs[n] * scale + offset;
+	}
+
+	/**
+	 * @param n index of point
+	 * @return y value of n-th point of the view
+	 */
+	public double getPointY(int n) {
+		return set.ys[n];
+	}
+
+	/**
+	 * Calculates membership of given x value.
+	 *
+	 * @param x x value
+	 * @return membership
+	 */
+	public double getMembership(double x) {
+		return set.getMembership((x - offset) / scale);
+	}
+
+	/**
+	 * @return maximum membership
+	 */
+	public double getMaximumMembership() {
+		return set.getMaximumMembership();
+	}
+
+	/**
+	 * Defuzzyfication with given method (see FuzzySet.DeFuzzyfyEx). All methods
+	 * are invariant to shifting and scaling, so the underlying set is defuzzified
+	 * (with min_dx scaled accordingly) and the result is transformed.
+	 *
+	 * @param method defuzzyfication method (DefuzMethod)
+	 * @param alpha  alpha parameter of ICOG and MICOG methods
+	 * @param min_dx segments narrower than this value are skipped
+	 * @return defuzzified value
+	 */
+	public double DeFuzzyfyEx(short method, double alpha, double min_dx) {
+		if (set.size < 2)
+			return 0.0;
+		return set.DeFuzzyfyEx(method, alpha, min_dx / scale) * scale + offset;
+	}
+
+	public double DeFuzzyfyEx(short method, double alpha) {
+		return DeFuzzyfyEx(method, alpha, 0.000001);
+	}
+
+	public double DeFuzzyfyEx(short method) {
+		return DeFuzzyfyEx(method, 0.0, 0.000001);
+	}
+
+	// Defuzzyfication with method configured for the underlying set
+	public double DeFuzzyfy() {
+		return DeFuzzyfyEx(set.def_defuz, set.def_alpha, set.def_mindx * scale);
+	}
+
+	/**
+	 * Copies transformed points into a regular fuzzy set.
+	 *
+	 * @param dest destination set (previous description is lost)
+	 * @return destination set
+	 */
+	public FuzzySet materialize(FuzzySet dest) {
+		dest.assign(set);
+		if (scale != 1.0)
+			dest.scaleDomain(scale);
+		dest.fuzzyfy(offset);
+		return dest;
+	}
+
+	public String toString() {
+		return materialize(new FuzzySet()).toString();
+	}
+
+}
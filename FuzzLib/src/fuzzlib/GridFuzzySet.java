@@ -0,0 +1,402 @@
+package fuzzlib;
+
+import fuzzlib.negs.Negation;
+import fuzzlib.norms.Norm;
+
+/**
+ * Fuzzy set described on a uniform grid of x values. Only memberships are
+ * stored - x value of i-th point is min + i * step. Membership between grid
+ * points is linear, so the set is a piecewise-linear function like FuzzySet.
+ *
+ * When sets share the same grid, norm processing and negation are simple
+ * elementwise loops over membership arrays and membership of any x value is
+ * found without searching. Sets created with the same grid parameters (or
+ * copies of one set refilled with sample) share the grid. Sets with different
+ * grids can be processed after conversion to regular fuzzy sets (see
+ * toFuzzySet).
+ */
+public class GridFuzzySet {
+
+	// the smallest x value of the grid
+	private double x_min;
+	// distance between grid points
+	private double step;
+	// memberships of grid points
+	private double[] ys;
+
+	// fuzzy set identifier
+	String id;
+	// fuzzy set description
+	String des;
+
+	/**
+	 * Creates a set with zero membership on a given grid.
+	 *
+	 * @param min    the smallest x value of the grid
+	 * @param max    the largest x value of the grid. If the parameter value is <=
+	 *               min then it is set to min + 1.
+	 * @param points number of grid points. If the parameter value is < 2 then it
+	 *               is set to 2.
+	 */
+	public GridFuzzySet(double min, double max, int points) {
+		if (points < 2)
+			points = 2;
+		if (!(max > min))
+			max = min + 1.0;
+		x_min = min;
+		step = (max - min) / (points - 1);
+		ys = new double[points];
+		id = "";
+		des = "";
+	}
+
+	/**
+	 * Creates a set with a given grid and memberships sampled from a regular
+	 * fuzzy set (see sample).
+	 *
+	 * @param fs     source fuzzy set
+	 * @param min    the smallest x value of the grid
+	 * @param max    the largest x value of the grid. If the parameter value is <=
+	 *               min then it is set to min + 1.
+	 * @param points number of grid points. If the parameter value is < 2 then it
+	 *               is set to 2.
+	 */
+	public GridFuzzySet(FuzzySet fs, double min, double max, int points) {
+		this(min, max, points);
+		sample(fs);
+		id = fs.id;
+		des = fs.des;
+	}
+
+	/**
+	 * Creates a copy of a set (with the same grid).
+	 *
+	 * @param gs source set
+	 */
+	public GridFuzzySet(GridFuzzySet gs) {
+		x_min = gs.x_min;
+		step = gs.step;
+		ys = gs.ys.clone();
+		id = gs.id;
+		des = gs.des;
+	}
+
+	/**
+	 * @return number of grid points
+	 */
+	public final int getSize() {
+		return ys.length;
+	}
+
+	/**
+	 * @return the smallest x value of the grid
+	 */
+	public final double getMin() {
+		return x_min;
+	}
+
+	/**
+	 * @return the largest x value of the grid
+	 */
+	public final double getMax() {
+		return x_min + (ys.length - 1) * step;
+	}
+
+	/**
+	 * @return distance between grid points
+	 */
+	public final double getStep() {
+		return step;
+	}
+
+	/**
+	 * @param n index of point
+	 * @return x value of n-th grid point
+	 */
+	public final double getPointX(int n) {
+		return x_min + n * step;
+	}
+
+	/**
+	 * @param n index of point
+	 * @return membership of n-th grid point
+	 */
+	public final double getPointY(int n) {
+		return ys[n];
+	}
+
+	/**
+	 * @param n     index of point
+	 * @param value new membership of n-th grid point
+	 */
+	public void setPointY(int n, double value) {
+		ys[n] = value;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public void setId(String _id) {
+		id = _id;
+	}
+
+	public String getDescription() {
+		return des;
+	}
+
+	public void setDescription(String _des) {
+		des = _des;
+	}
+
+	/**
+	 * @param gs other set
+	 * @return true if both sets are described on the same grid
+	 */
+	public boolean hasSameGrid(GridFuzzySet gs) {
+		return ys.length == gs.ys.length && x_min == gs.x_min && step == gs.step;
+	}
+
+	// Changes the grid of this set to the grid of a given set
+	private void _setGrid(GridFuzzySet gs) {
+		x_min = gs.x_min;
+		step = gs.step;
+		if (ys.length != gs.ys.length)
+			ys = new double[gs.ys.length];
+	}
+
+	/**
+	 * Sets memberships of grid points to membership values of a regular fuzzy set
+	 * (the grid is not changed). Parts of the fuzzy set between grid points are
+	 * lost, so the error of conversion depends on the grid step.
+	 *
+	 * @param fs source fuzzy set
+	 * @return reference to this object
+	 */
+	public GridFuzzySet sample(FuzzySet fs) {
+		int n = ys.length, size = fs.size, i, j = 0;
+		if (size == 0) {
+			for (i = 0; i < n; i++)
+				ys[i] = 0.0;
+			return this;
+		}
+		double[] fx = fs.xs, fy = fs.ys;
+		double x;
+		// grid is sorted, so segments of the set are found in one pass
+		for (i = 0; i < n; i++) {
+			x = x_min + i * step;
+			if (x <= fx[0])
+				ys[i] = fy[0];
+			else if (x >= fx[size - 1])
+				ys[i] = fy[size - 1];
+			else {
+				while (fx[j + 1] <= x)
+					j++;
+				ys[i] = (x - fx[j]) * (fy[j + 1] - fy[j]) / (fx[j + 1] - fx[j]) + fy[j];
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Copies grid points into a regular fuzzy set.
+	 *
+	 * @param dest destination set (previous description is lost)
+	 * @return destination set
+	 */
+	public FuzzySet toFuzzySet(FuzzySet dest) {
+		int n = ys.length;
+		dest.ClearSet();
+		if (dest.xs.length < n) {
+			dest.xs = new double[n + FuzzySet.DEFAULT_ARRAY_EXTENSION];
+			dest.ys = new double[n + FuzzySet.DEFAULT_ARRAY_EXTENSION];
+		}
+		for (int i = 0; i < n; i++) {
+			dest.xs[i] = x_min + i * step;
+			dest.ys[i] = ys[i];
+			if (dest.max_membership.y < ys[i])
+				dest.max_membership.assign(dest.xs[i], ys[i]);
+		}
+		dest.size = n;
+		dest.min_val = dest.xs[0];
+		dest.max_val = dest.xs[n - 1];
+		dest._changed();
+		return dest;
+	}
+
+	/**
+	 * Calculates membership of given x value (in constant time).
+	 *
+	 * @param x x value
+	 * @return membership
+	 */
+	public double getMembership(double x) {
+		double t = (x - x_min) / step;
+		if (!(t > 0.0)) // also NaN
+			return ys[0];
+		int last = ys.length - 1;
+		if (t >= last)
+			return ys[last];
+		int i = (int) t;
+		return ys[i] + (ys[i + 1] - ys[i]) * (t - i);
+	}
+
+	/**
+	 * @return maximum membership
+	 */
+	public double getMaximumMembership() {
+		double max = ys[0];
+		for (int i = 1; i < ys.length; i++) {
+			if (max < ys[i])
+				max = ys[i];
+		}
+		return max;
+	}
+
+	/**
+	 * Processes two sets described on the same grid with a norm. Membership of
+	 * each grid point is calculated independently.
+	 *
+	 * @param dest destination set (gets the grid of input sets, can be one of
+	 *             them)
+	 * @param aSet first set
+	 * @param bSet second set
+	 * @param norm norm operation
+	 * @throws IllegalArgumentException if grids of input sets are different
+	 */
+	public static void processSetsWithNorm(GridFuzzySet dest, GridFuzzySet aSet, GridFuzzySet bSet, Norm norm) {
+		if (!aSet.hasSameGrid(bSet))
+			throw new IllegalArgumentException("Grids of fuzzy sets '" + aSet.id + "' and '" + bSet.id + "' differ");
+		dest._setGrid(aSet);
+		norm.calc(aSet.ys, bSet.ys, dest.ys, dest.ys.length);
+	}
+
+	/**
+	 * Processes membership of each grid point with a constant level.
+	 *
+	 * @param level membership level
+	 * @param norm  norm operation
+	 */
+	public void processSetAndMembershipWithNorm(double level, Norm norm) {
+		for (int i = 0; i < ys.length; i++) {
+			ys[i] = norm.calc(ys[i], level);
+		}
+	}
+
+	/**
+	 * Calculates negation of each grid point.
+	 *
+	 * @param neg negation operation
+	 */
+	public void toNegation(Negation neg) {
+		neg.calc(ys, ys, ys.length);
+	}
+
+	/**
+	 * Defuzzyfication with given method (see FuzzySet.DeFuzzyfyEx). Grid step is
+	 * constant, so there is no minimum dx parameter.
+	 *
+	 * @param method defuzzyfication method (DefuzMethod)
+	 * @param alpha  alpha parameter of ICOG and MICOG methods
+	 * @return defuzzified value
+	 */
+	public double DeFuzzyfyEx(short method, double alpha) {
+		switch (method) {
+		case DefuzMethod.DF_MAX:
+			return _defuzzCenterOfMax();
+		case DefuzMethod.DF_ICOG:
+			return _defuzzCenterOfGravity(alpha, false);
+		case DefuzMethod.DF_MICOG:
+			return _defuzzCenterOfGravity(alpha, true);
+		default:
+			return _defuzzCenterOfGravity();
+		}
+	}
+
+	public double DeFuzzyfyEx(short method) {
+		return DeFuzzyfyEx(method, 0.0);
+	}
+
+	private double _defuzzCenterOfMax() {
+		int i, idxL, idxR;
+		idxL = idxR = 0;
+		for (i = 1; i < ys.length; i++) {
+			if (ys[idxL] < ys[i]) {
+				idxL = idxR = i;
+			} else if (ys[idxL] == ys[i])
+				idxR = i;
+		}
+		return x_min + (idxL + idxR) * step / 2.0;
+	}
+
+	// Center of gravity - each inner grid point is the top of a triangle of width
+	// 2*step (its moment is x*y*step), points at both ends are tops of halves.
+	private double _defuzzCenterOfGravity() {
+		int last = ys.length - 1;
+		double sum = 0.0, isum = 0.0;
+		for (int i = 1; i < last; i++) {
+			sum += ys[i];
+			isum += i * ys[i];
+		}
+		double y0 = ys[0], yn = ys[last], xn = x_min + last * step;
+		double area = sum + (y0 + yn) / 2.0;
+		if (area == 0.0)
+			return (xn - x_min) / 2.0 + x_min;
+		double moment = x_min * sum + step * isum + y0 * (x_min / 2.0 + step / 6.0) + yn * (xn / 2.0 - step / 6.0);
+		return moment / area;
+	}
+
+	// Indexed center of gravity - parts below alpha are cut off (modified =
+	// false) or the function is lowered by alpha (modified = true)
+	private double _defuzzCenterOfGravity(double alpha, boolean modified) {
+		double dx, dx2, dx3, dy, dd;
+		double x1, x2, y1, y2, base;
+		double Sdydx3, Sdddx2, Sdydx2, Sdddx;
+
+		Sdydx3 = Sdddx2 = Sdydx2 = Sdddx = 0.0;
+		base = modified ? alpha : 0.0;
+
+		for (int i = 0; i < ys.length - 1; i++) {
+			y1 = ys[i];
+			y2 = ys[i + 1];
+			// if both start and end point are < alpha then no calculations
+			if (y1 >= alpha || y2 >= alpha) {
+				x1 = x_min + i * step;
+				x2 = x1 + step;
+				if (y1 < alpha) { // => calculate new start point
+					x1 = x1 + (x2 - x1) * (alpha - y1) / (y2 - y1);
+					y1 = alpha;
+				}
+				if (y2 < alpha) { // => calculate new end point
+					x2 = x2 - (x2 - x1) * (alpha - y2) / (y1 - y2);
+					y2 = alpha;
+				}
+				y1 -= base;
+				y2 -= base;
+
+				dx = x2 - x1;
+				if (dx > 0.0) {
+					dy = y2 - y1;
+					dx2 = x2 * x2 - x1 * x1;
+					dx3 = x2 * x2 * x2 - x1 * x1 * x1;
+					dd = x2 * y1 - x1 * y2;
+
+					Sdydx3 += dy * dx3 / dx;
+					Sdddx2 += dd * dx2 / dx;
+					Sdydx2 += dy * dx2 / dx;
+					Sdddx += dd;
+				}
+			}
+		}
+
+		if ((Sdydx2 / 2.0 + Sdddx) != 0.0)
+			return (Sdydx3 / 3.0 + Sdddx2 / 2.0) / (Sdydx2 / 2.0 + Sdddx);
+		else
+			return (getMax() - x_min) / 2.0 + x_min;
+	}
+
+	public String toString() {
+		return toFuzzySet(new FuzzySet()).toString();
+	}
+
+}
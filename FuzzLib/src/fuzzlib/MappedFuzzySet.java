@@ -0,0 +1,264 @@
+package fuzzlib;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Read-only view of a fuzzy set stored in a memory-mapped library file (see
+ * FuzzySetLibrary). Description points are read directly from the file -
+ * creating a view copies nothing. Membership and defuzzification are
+ * calculated on the mapped data, other operations need a regular fuzzy set
+ * (see load).
+ *
+ * Views only read the mapped file, so they can be used by many threads.
+ */
+public class MappedFuzzySet {
+
+	// library holding the set
+	private final FuzzySetLibrary library;
+	// index of the set in the library
+	private final int nr;
+	// point area of the library file
+	private final DoubleBuffer data;
+	// positions of x values and y values in the point area
+	private final int xo, yo;
+	// number of description points
+	private final int size;
+
+	MappedFuzzySet(FuzzySetLibrary library, int nr, DoubleBuffer data, int offset, int size) {
+		this.library = library;
+		this.nr = nr;
+		this.data = data;
+		this.size = size;
+		xo = offset;
+		yo = offset + size;
+	}
+
+	/**
+	 * @return number of description points
+	 */
+	public final int getSize() {
+		return size;
+	}
+
+	/**
+	 * @param n index of point
+	 * @return x value of n-th point
+	 */
+	public final double getPointX(int n) {
+		return data.get(xo + n);
+	}
+
+	/**
+	 * @param n index of point
+	 * @return y value of n-th point
+	 */
+	public final double getPointY(int n) {
+		return data.get(yo + n);
+	}
+
+	public String getId() {
+		return library.getId(nr);
+	}
+
+	public String getDescription() {
+		return library.getDescription(nr);
+	}
+
+	/**
+	 * Copies the set into a regular fuzzy set.
+	 *
+	 * @param dest destination set (previous description is lost)
+	 * @return destination set
+	 */
+	public FuzzySet load(FuzzySet dest) {
+		dest.ClearSet();
+		if (size == 0)
+			return dest;
+		if (dest.xs.length < size) {
+			dest.xs = new double[size + FuzzySet.DEFAULT_ARRAY_EXTENSION];
+			dest.ys = new double[size + FuzzySet.DEFAULT_ARRAY_EXTENSION];
+		}
+		for (int i = 0; i < size; i++) {
+			dest.xs[i] = data.get(xo + i);
+			dest.ys[i] = data.get(yo + i);
+			if (dest.max_membership.y < dest.ys[i])
+				dest.max_membership.assign(dest.xs[i], dest.ys[i]);
+		}
+		dest.size = size;
+		dest.min_val = dest.xs[0];
+		dest.max_val = dest.xs[size - 1];
+		dest._changed();
+		return dest;
+	}
+
+	/**
+	 * Calculates membership of given x value.
+	 *
+	 * @param x x value
+	 * @return membership
+	 */
+	public double getMembership(double x) {
+		if (size == 0)
+			return 0.0;
+		if (x <= data.get(xo))
+			return data.get(yo);
+		if (x >= data.get(xo + size - 1))
+			return data.get(yo + size - 1);
+
+		int left = 0, right = size - 1, width, act;
+		while ((width = right - left) > 1) {
+			act = left + width / 2;
+			if (x < data.get(xo + act))
+				right = act;
+			else
+				left = act;
+		}
+
+		double x1 = data.get(xo + left), y1 = data.get(yo + left);
+		return (x - x1) * (data.get(yo + right) - y1) / (data.get(xo + right) - x1) + y1;
+	}
+
+	/**
+	 * @return maximum membership (-1 for an empty set)
+	 */
+	public double getMaximumMembership() {
+		double max = -1.0;
+		for (int i = 0; i < size; i++) {
+			if (max < data.get(yo + i))
+				max = data.get(yo + i);
+		}
+		return max;
+	}
+
+	/**
+	 * Defuzzyfication with given method (see FuzzySet.DeFuzzyfyEx).
+	 *
+	 * @param method defuzzyfication method (DefuzMethod)
+	 * @param alpha  alpha parameter of ICOG and MICOG methods
+	 * @param min_dx segments narrower than this value are skipped
+	 * @return defuzzified value
+	 */
+	public double DeFuzzyfyEx(short method, double alpha, double min_dx) {
+		switch (method) {
+		case DefuzMethod.DF_MAX:
+			return _defuzzCenterOfMax();
+		case DefuzMethod.DF_ICOG:
+			return _defuzzCenterOfGravity(alpha, false, min_dx);
+		case DefuzMethod.DF_MICOG:
+			return _defuzzCenterOfGravity(alpha, true, min_dx);
+		default:
+			return _defuzzCenterOfGravity(min_dx);
+		}
+	}
+
+	public double DeFuzzyfyEx(short method, double alpha) {
+		return DeFuzzyfyEx(method, alpha, 0.000001);
+	}
+
+	public double DeFuzzyfyEx(short method) {
+		return DeFuzzyfyEx(method, 0.0, 0.000001);
+	}
+
+	private double _defuzzCenterOfMax() {
+		if (size < 2)
+			return 0.0;
+		int i, idxL, idxR;
+		idxL = idxR = 0;
+		for (i = 1; i < size; i++) {
+			if (data.get(yo + idxL) < data.get(yo + i)) {
+				idxL = idxR = i;
+			} else if (data.get(yo + idxL) == data.get(yo + i))
+				idxR = i;
+		}
+		double xl = data.get(xo + idxL);
+		return xl + (data.get(xo + idxR) - xl) / 2.0;
+	}
+
+	// Center of gravity (see FuzzySet - the same formula)
+	private double _defuzzCenterOfGravity(double min_dx) {
+		if (size < 2)
+			return 0.0;
+		double dx, dy, x1, x2, y1, y2;
+		double Sdydx3, Sdddx2, Sdydx2, Sdddx;
+		Sdydx3 = Sdddx2 = Sdydx2 = Sdddx = 0.0;
+
+		for (int i = 0; i < size - 1; i++) {
+			x1 = data.get(xo + i);
+			x2 = data.get(xo + i + 1);
+			dx = x2 - x1;
+			if (dx > min_dx) {
+				y1 = data.get(yo + i);
+				y2 = data.get(yo + i + 1);
+				dy = y2 - y1;
+				double dd = x2 * y1 - x1 * y2;
+				double dx2 = x2 * x2 - x1 * x1;
+				Sdydx3 += dy * (x2 * x2 * x2 - x1 * x1 * x1) / dx;
+				Sdddx2 += dd * dx2 / dx;
+				Sdydx2 += dy * dx2 / dx;
+				Sdddx += dd * dx / dx;
+			}
+		}
+
+		if ((Sdydx2 / 2.0 + Sdddx) != 0.0)
+			return (Sdydx3 / 3.0 + Sdddx2 / 2.0) / (Sdydx2 / 2.0 + Sdddx);
+		double first = data.get(xo);
+		return (data.get(xo + size - 1) - first) / 2.0 + first;
+	}
+
+	// Indexed center of gravity - parts below alpha are cut off (modified =
+	// false) or the function is lowered by alpha and parts below 0 are cut off
+	// (modified = true). The same formulas as in FuzzySet.
+	private double _defuzzCenterOfGravity(double alpha, boolean modified, double min_dx) {
+		if (size < 2)
+			return 0.0;
+
+		double dx, dx2, dx3, dy, dd;
+		double x1, x2, y1, y2, base, level;
+		double Sdydx3, Sdddx2, Sdydx2, Sdddx;
+
+		Sdydx3 = Sdddx2 = Sdydx2 = Sdddx = 0.0;
+		base = modified ? alpha : 0.0;
+		level = modified ? 0.0 : alpha;
+
+		for (int i = 0; i < (size - 1); i++) {
+			x1 = data.get(xo + i);
+			x2 = data.get(xo + i + 1);
+			y1 = data.get(yo + i) - base;
+			y2 = data.get(yo + i + 1) - base;
+			// if both start and end point are below the level then no calculations
+			if (y1 >= level || y2 >= level) {
+				if (y1 < level) { // => calculate new start point
+					x1 = x1 + (x2 - x1) * (level - y1) / (y2 - y1);
+					y1 = level;
+				}
+				if (y2 < level) { // => calculate new end point
+					x2 = x2 - (x2 - x1) * (level - y2) / (y1 - y2);
+					y2 = level;
+				}
+
+				dx = x2 - x1;
+				if (dx > min_dx) {
+					dy = y2 - y1;
+					dx2 = x2 * x2 - x1 * x1;
+					dx3 = x2 * x2 * x2 - x1 * x1 * x1;
+					dd = x2 * y1 - x1 * y2;
+
+					Sdydx3 += dy * dx3 / dx;
+					Sdddx2 += dd * dx2 / dx;
+					Sdydx2 += dy * dx2 / dx;
+					Sdddx += dd * dx / dx;
+				}
+			}
+		}
+
+		if ((Sdydx2 / 2.0 + Sdddx) != 0.0)
+			return (Sdydx3 / 3.0 + Sdddx2 / 2.0) / (Sdydx2 / 2.0 + Sdddx);
+		double first = data.get(xo);
+		return (data.get(xo + size - 1) - first) / 2.0 + first;
+	}
+
+	public String toString() {
+		return load(new FuzzySet(size)).toString();
+	}
+
+}
@@ -45,6 +45,12 @@ public class SPoint implements java.lang.Comparable<SPoint> {
 		return this;
 	}
 
+	public SPoint assign(double ix, double iy) {
+		this.x = ix;
+		this.y = iy;
+		return this;
+	}
+
 //KONIEC
 	public int compareTo(SPoint o) {
 		SPoint p = (SPoint) o;
@@ -17,4 +17,12 @@ public class LIBinary extends LImp{
 		if (tmp > a)	return tmp;
 		else return a;
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double tmp = 1.0 - a[i];
+			out[i] = tmp > b[i] ? tmp : b[i];
+		}
+	}
 }
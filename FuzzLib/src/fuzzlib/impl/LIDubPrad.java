@@ -19,4 +19,15 @@ public class LIDubPrad extends LImp{
 		if (membership == 1.0) 	return tmp;
 		return 0.0;
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double ai = a[i], bi = b[i];
+			if (bi == 0.0)
+				out[i] = 1.0 - ai;
+			else
+				out[i] = ai == 1.0 ? bi : 1.0;
+		}
+	}
 }
@@ -24,4 +24,17 @@ public class LIFodor extends LImp{
 			
 		}
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double ai = a[i], bi = b[i], tmp;
+			if (ai <= bi)
+				out[i] = 1.0;
+			else {
+				tmp = 1.0 - ai;
+				out[i] = tmp > bi ? tmp : bi;
+			}
+		}
+	}
 }
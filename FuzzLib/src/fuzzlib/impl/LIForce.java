@@ -21,4 +21,12 @@ public class LIForce extends LImp{
 		return membership*tmp;
 	}
 
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double ai = a[i], tmp = ai - b[i];
+			out[i] = ai * (tmp < 0.0 ? 1.0 + tmp : 1.0 - tmp);
+		}
+	}
+
 }
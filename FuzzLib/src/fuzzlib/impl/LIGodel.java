@@ -15,4 +15,11 @@ public class LIGodel extends LImp{
 		if (membership > a)	return a;
 		else 				return 1.0;
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			out[i] = a[i] > b[i] ? b[i] : 1.0;
+		}
+	}
 }
@@ -23,4 +23,17 @@ public class LIGoguen extends LImp{
 			else 		   return tmp;
 		}
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double ai = a[i], tmp;
+			if (ai == 0.0)
+				out[i] = 1.0;
+			else {
+				tmp = b[i] / ai;
+				out[i] = tmp > 1.0 ? 1.0 : tmp;
+			}
+		}
+	}
 }
@@ -17,4 +17,12 @@ public class LILukasiewicz extends LImp{
 		if (tmp < 1.0)	return 1.0;
 		else 			return tmp;
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double tmp = 1.0 - a[i] + b[i];
+			out[i] = tmp < 1.0 ? tmp : 1.0;
+		}
+	}
 }
@@ -13,4 +13,12 @@ public class LIReichenbach extends LImp{
 	public double reverseCalc(double membership, double a) {
 		return 1.0-membership + a * membership;
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double ai = a[i];
+			out[i] = 1.0 - ai + ai * b[i];
+		}
+	}
 }
@@ -16,4 +16,11 @@ public class LIRescher extends LImp{
 		else 				return 0.0;
 	}
 
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			out[i] = a[i] > b[i] ? 0.0 : 1.0;
+		}
+	}
+
 }
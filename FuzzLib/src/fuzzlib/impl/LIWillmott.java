@@ -28,4 +28,20 @@ public class LIWillmott extends LImp{
 		//uzupeni w przyszoci 
 		return 0;
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double ai = a[i], bi = b[i], one_a = 1.0 - ai, one_b = 1.0 - bi;
+			// max(1-a,b) and min(1-a,b)
+			double max1_a_b = one_a > bi ? one_a : bi;
+			double min1_a_b = one_a > bi ? bi : one_a;
+			// max( a, 1-b, min(1-a,b) )
+			double tmp = ai > one_b ? ai : one_b;
+			if (tmp < min1_a_b)
+				tmp = min1_a_b;
+			// final result = min(tmp,max1_a_b)
+			out[i] = tmp > max1_a_b ? max1_a_b : tmp;
+		}
+	}
 }
@@ -16,4 +16,13 @@ public class LIYager extends LImp{
 		else return Math.pow(membership,a);
 	}
 	
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double ai = a[i];
+			out[i] = ai == 0.0 ? 1.0 : Math.pow(b[i], ai);
+		}
+	}
+
 }
@@ -26,4 +26,13 @@ public class LIZadeh extends LImp{
 		if(tmp1>tmp2) return tmp1;
 		else		  return tmp2;
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double ai = a[i], bi = b[i], tmp1 = 1.0 - ai;
+			double tmp2 = ai > bi ? bi : ai; // min(a,b)
+			out[i] = tmp1 > tmp2 ? tmp1 : tmp2;
+		}
+	}
 }
@@ -10,5 +10,11 @@ public class NegZadeh extends Negation {
 		return 1.0 - a;
 	}
 
-}
+	@Override
+	public void calc(double[] a, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			out[i] = 1.0 - a[i];
+		}
+	}
 
+}
@@ -9,6 +9,19 @@ public abstract class Negation {
 	public static final short NEG_YAGER = 201;
 	public static final short NEG_SUGENO = 202;
 	public abstract double calc(double a);
+
+	/**
+	 * Calculates negation of n values: out[i] = calc(a[i]).
+	 *
+	 * @param a   arguments
+	 * @param out results (can be the argument array)
+	 * @param n   number of values
+	 */
+	public void calc(double[] a, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			out[i] = calc(a[i]);
+		}
+	}
 	public short getType(){ return type; }
 	public static int isNegation(short negation_type){
         if ((negation_type>=MIN)&&(negation_type<=MAX)) return 1;
@@ -8,6 +8,22 @@ public abstract class Norm {
 
 	public abstract double calc(double a, double b);
 
+	/**
+	 * Calculates the operation for n pairs of values: out[i] = calc(a[i], b[i]).
+	 * Implementations of common operations override this loop with the formula
+	 * written inline.
+	 *
+	 * @param a   first arguments
+	 * @param b   second arguments
+	 * @param out results (can be one of argument arrays)
+	 * @param n   number of values
+	 */
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			out[i] = calc(a[i], b[i]);
+		}
+	}
+
 	/* returns b, result represents the result of calc() */
 	public abstract double reverseCalc(double result, double a);
 	
@@ -19,4 +19,12 @@ public class SNLukas extends SNorm {
 	public double reverseCalc(double membership, double a) {
 		return membership - a;
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double tmp = a[i] + b[i];
+			out[i] = tmp > 1.0 ? 1.0 : tmp;
+		}
+	}
 }
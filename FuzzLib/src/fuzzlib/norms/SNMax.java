@@ -16,4 +16,11 @@ public class SNMax extends SNorm{
 		return membership;
 	}
 
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			out[i] = a[i] > b[i] ? a[i] : b[i];
+		}
+	}
+
 }
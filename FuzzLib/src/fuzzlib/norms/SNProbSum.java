@@ -18,4 +18,12 @@ public class SNProbSum extends SNorm {
 		else
 			return (membership - a) / (1.0 - a);
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double ai = a[i], bi = b[i];
+			out[i] = ai + bi - ai * bi;
+		}
+	}
 }
@@ -24,4 +24,12 @@ public class TNEinstein extends TNorm {
 		else
 			return tmp / (a + membership - membership * a);
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double ai = a[i], bi = b[i], tmp = ai * bi;
+			out[i] = tmp == 0.0 ? 0.0 : tmp / (2.0 - (ai + bi - tmp));
+		}
+	}
 }
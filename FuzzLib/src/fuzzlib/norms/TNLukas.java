@@ -22,4 +22,12 @@ public class TNLukas extends TNorm {
 		else
 			return 0.0;
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			double tmp = a[i] + b[i] - 1.0;
+			out[i] = tmp > 0.0 ? tmp : 0.0;
+		}
+	}
 }
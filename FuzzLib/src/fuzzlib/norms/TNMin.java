@@ -17,4 +17,11 @@ public class TNMin extends TNorm {
 		return membership;
 	}
 
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			out[i] = a[i] > b[i] ? b[i] : a[i];
+		}
+	}
+
 }
@@ -16,4 +16,11 @@ public class TNProduct extends TNorm {
 		}
 		return membership / a;
 	}
+
+	@Override
+	public void calc(double[] a, double[] b, double[] out, int n) {
+		for (int i = 0; i < n; i++) {
+			out[i] = a[i] * b[i];
+		}
+	}
 }
@@ -4,7 +4,8 @@ import fuzzlib.*;
 public class InVar {
 	public double inval;
 //ZMIANA
-	public FuzzySet invalF;
+	public FuzzySet invalF; // fuzzyfied input as a regular set - filled by getFuzzyfied()
+	public FuzzySetView invalV; // fuzzyfied input - shifted view of fuzz
 	public FuzzySet fuzz;
 //KONIEC
 	public String id;
@@ -15,6 +16,7 @@ public class InVar {
 		des="";
 		fuzz = null;
 		invalF = null;
+		invalV = null;
 		inval=0.0;
 	}
 	public InVar(InVar in){
@@ -25,6 +27,32 @@ public class InVar {
 //ZMIANA
 		inval=in.inval;
 		if (in.invalF!=null) invalF = new FuzzySet(); 
+		invalV = _copyView(in);
+	}
+
+	// Copies the view of fuzzyfied input (the copied fuzzyfier replaces the
+	// original one), null if there is no valid view
+	private FuzzySetView _copyView(InVar in) {
+		if (in.invalV == null || in.invalV.getSet() == null)
+			return null;
+		FuzzySet set = in.invalV.getSet() == in.fuzz ? fuzz : in.invalV.getSet();
+		return new FuzzySetView(set, in.invalV.getOffset(), in.invalV.getScale());
+	}
+
+	/**
+	 * Returns fuzzyfied input as a regular fuzzy set. Reasoning sets only the
+	 * view of fuzzyfied input (invalV), the set invalF is filled from the view by
+	 * this method (its arrays are reused).
+	 *
+	 * @return fuzzyfied input, null if the input is not fuzzyfied
+	 */
+	public FuzzySet getFuzzyfied() {
+		if (invalV != null && invalV.getSet() != null) {
+			if (invalF == null)
+				invalF = new FuzzySet();
+			invalV.materialize(invalF);
+		}
+		return invalF;
 	}
 
 	
@@ -35,6 +63,7 @@ public class InVar {
 			if (in.fuzz != null) fuzz = new FuzzySet(in.fuzz);
 	        inval = in.inval;
 	        if (in.invalF!=null) invalF = new FuzzySet(); 
+	        invalV = _copyView(in);
 //KONIEC
 	        return this; 
 	} 
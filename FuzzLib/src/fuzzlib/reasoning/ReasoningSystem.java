@@ -3,6 +3,7 @@ package fuzzlib.reasoning;
 import java.io.IOException;
 import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -10,6 +11,8 @@ import java.util.ListIterator;
 
 import fuzzlib.DefuzMethod;
 import fuzzlib.FuzzySet;
+import fuzzlib.FuzzySetRegistry;
+import fuzzlib.FuzzySetView;
 import fuzzlib.creators.OperationCreator;
 import fuzzlib.norms.Norm;
 import fuzzlib.norms.SNorm;
@@ -40,6 +43,8 @@ public class ReasoningSystem {
 	HashMap<String, Integer> ConIndex = null;
 	int csize;
 	int maxcsize;
+	FuzzySetRegistry shapes; // distinct shapes of premise and conclusion sets
+	int[] preShape; // shape number of each premise set
 
 	List<Rule> Rules = new LinkedList<Rule>(); // Fuzzy system's rules
 
@@ -58,17 +63,29 @@ public class ReasoningSystem {
 
 	double truthDy, truthDx;
 
+	int outPointLimit; // limit of points of agregated output sets (0 - no limit)
+
 	Rule lastRule;
 
 	FuzzySet _tmpOne; // temporary sets needed for calculations
 	FuzzySet _tmpTwo;
 
+	FuzzySet[][] _aggSets; // rule results collected for agregation (for each output variable)
+	int[] _aggNum; // number of collected sets (for each output variable)
+
+	double[] _shapeMemb; // results of IS operation cached for each shape of premise sets
+	int[] _shapeVar; // input variable of cached result (for each shape)
+	int[] _shapeStamp; // reasoning process of cached result (for each shape)
+	int _stamp; // number of current reasoning process
+
 //ZMIANA    
 	void _delete_properties() {
 		ins = null;
 		outs = null;
 		PreS = null;
 		ConS = null;
+		shapes = null;
+		preShape = null;
 		opIS = null;
 		opOR = null;
 		opAND = null;
@@ -82,6 +99,109 @@ public class ReasoningSystem {
 
 		_tmpOne = null;
 		_tmpTwo = null;
+		_aggSets = null;
+		_aggNum = null;
+		_shapeMemb = null;
+		_shapeVar = null;
+		_shapeStamp = null;
+	}
+
+	// Starts calculation of premises. Cached results of earlier reasoning
+	// processes become invalid.
+	void _startPremises() {
+		int n = shapes.getSize();
+		if (_shapeMemb == null || _shapeMemb.length < n) {
+			_shapeMemb = new double[n];
+			_shapeVar = new int[n];
+			_shapeStamp = new int[n];
+			_stamp = 0;
+		}
+		if (++_stamp == 0) { // after overflow no result may look current
+			Arrays.fill(_shapeStamp, -1);
+			_stamp = 1;
+		}
+	}
+
+	// Fuzzyfies value of an input variable - the fuzzyfier shifted by the value
+	// (view - points are not copied). The fuzzyfied set is created from the view
+	// only when it is read (see InVar.getFuzzyfied).
+	void _fuzzyfyInput(InVar in) {
+		if (in.invalV == null)
+			in.invalV = new FuzzySetView();
+		in.invalV.set(in.fuzz, in.inval, 1.0);
+	}
+
+	// Calculates IS operation for an input variable and a premise set. Premise
+	// sets of the same shape share the result within one reasoning process.
+	double _premiseMembership(int var, int set) {
+		int sh = preShape[set];
+		if (_shapeStamp[sh] == _stamp && _shapeVar[sh] == var)
+			return _shapeMemb[sh];
+		double m;
+		if (ins[var].invalV != null) // variable is fuzzyfied
+			m = FuzzySet.heightOfNorm(ins[var].invalV, PreS[set], opIS);
+		else // variable is a singleton
+			m = PreS[set].getMembership(ins[var].inval);
+		_shapeMemb[sh] = m;
+		_shapeVar[sh] = var;
+		_shapeStamp[sh] = _stamp;
+		return m;
+	}
+
+	// Starts collecting rule results. The current output set (filled with the
+	// neutral value) is the first collected set of each output variable. Points
+	// are copied - the output set is the destination of agregation, shared
+	// arrays would be copied again by each reasoning process.
+	void _startAgregation() {
+		if (_aggSets == null || _aggSets.length < osize) {
+			_aggSets = new FuzzySet[osize][];
+			_aggNum = new int[osize];
+		}
+		for (int i = 0; i < osize; i++) {
+			_aggNum[i] = 0;
+			_nextAggSet(i).assignPoints(outs[i].outset);
+		}
+	}
+
+	// Returns a set for the next rule result of an output variable. Sets are
+	// reused by subsequent reasoning processes.
+	FuzzySet _nextAggSet(int var) {
+		FuzzySet[] arr = _aggSets[var];
+		if (arr == null)
+			arr = _aggSets[var] = new FuzzySet[DEFAULT_SETARRAY_SIZE];
+		else if (_aggNum[var] == arr.length)
+			arr = _aggSets[var] = Arrays.copyOf(arr, 2 * arr.length);
+		if (arr[_aggNum[var]] == null)
+			arr[_aggNum[var]] = new FuzzySet();
+		return arr[_aggNum[var]++];
+	}
+
+	// Agregates all collected rule results of each output variable. Results are
+	// folded pair by pair (agregation(rule result, agregated set)) like in
+	// earlier versions - the N-ary sweep gives the same function for minimum
+	// and maximum, but not the same points.
+	void _finishAgregation() {
+		for (int i = 0; i < osize; i++) {
+			FuzzySet out = outs[i].outset;
+			// the first collected set is a copy of the output set, temporary
+			// sets take turns as the agregated set
+			FuzzySet acc = out, dest;
+			for (int j = 1; j < _aggNum[i]; j++) {
+				dest = acc == _tmpOne ? _tmpTwo : _tmpOne;
+				FuzzySet.processSetsWithNorm(dest, _aggSets[i][j], acc, ruleAgregator);
+				dest.PackFlatSections();
+				acc = dest;
+			}
+			if (acc != out)
+				out.assignPoints(acc);
+			_limitPoints(out);
+		}
+	}
+
+	// Simplifies an agregated set to the limit of points (if the limit is set)
+	void _limitPoints(FuzzySet fs) {
+		if (outPointLimit > 0 && fs.getSize() > outPointLimit)
+			fs.simplify(0.0, outPointLimit);
 	}
 
 	public ReasoningSystem() {
@@ -92,9 +212,11 @@ public class ReasoningSystem {
 		psize = 0;
 		maxpsize = DEFAULT_SETARRAY_SIZE;
 		PreS = new FuzzySet[maxpsize];
+		preShape = new int[maxpsize];
 		csize = 0;
 		maxcsize = DEFAULT_SETARRAY_SIZE;
 		ConS = new FuzzySet[maxcsize];
+		shapes = new FuzzySetRegistry();
 		InIndex = new HashMap<String, Integer>();
 		OutIndex = new HashMap<String, Integer>();
 		PreIndex = new HashMap<String, Integer>();
@@ -114,6 +236,7 @@ public class ReasoningSystem {
 
 		truthDy = 0.01;
 		truthDx = 0.001;
+		outPointLimit = 0;
 
 		_tmpOne = new FuzzySet(100);
 		_tmpTwo = new FuzzySet(100);
@@ -133,9 +256,11 @@ public class ReasoningSystem {
 		psize = 0;
 		maxpsize = config.getNumberOfPremiseSets();
 		PreS = new FuzzySet[maxpsize];
+		preShape = new int[maxpsize];
 		csize = 0;
 		maxcsize = config.getNumberOfConclusionSets();
 		ConS = new FuzzySet[maxcsize];
+		shapes = new FuzzySetRegistry();
 		InIndex = new HashMap<String, Integer>();
 		OutIndex = new HashMap<String, Integer>();
 		PreIndex = new HashMap<String, Integer>();
@@ -154,6 +279,7 @@ public class ReasoningSystem {
 
 		truthDy = config.getTruthYPrecision();
 		truthDx = config.getTruthXPrecision();
+		outPointLimit = config.getOutputPointLimit();
 
 		_tmpOne = new FuzzySet(100);
 		_tmpTwo = new FuzzySet(100);
@@ -176,9 +302,11 @@ public class ReasoningSystem {
 		psize = 0;
 		maxpsize = DEFAULT_SETARRAY_SIZE;
 		PreS = new FuzzySet[maxpsize];
+		preShape = new int[maxpsize];
 		csize = 0;
 		maxcsize = DEFAULT_SETARRAY_SIZE;
 		ConS = new FuzzySet[maxcsize];
+		shapes = new FuzzySetRegistry();
 		InIndex = new HashMap<String, Integer>();
 		OutIndex = new HashMap<String, Integer>();
 		PreIndex = new HashMap<String, Integer>();
@@ -197,6 +325,7 @@ public class ReasoningSystem {
 
 		truthDy = 0.01;
 		truthDx = 0.001;
+		outPointLimit = 0;
 
 		_tmpOne = new FuzzySet(100);
 		_tmpTwo = new FuzzySet(100);
@@ -223,9 +352,11 @@ public class ReasoningSystem {
 		psize = 0;
 		maxpsize = config.getNumberOfPremiseSets();
 		PreS = new FuzzySet[maxpsize];
+		preShape = new int[maxpsize];
 		csize = 0;
 		maxcsize = config.getNumberOfConclusionSets();
 		ConS = new FuzzySet[maxcsize];
+		shapes = new FuzzySetRegistry();
 		InIndex = new HashMap<String, Integer>();
 		OutIndex = new HashMap<String, Integer>();
 		PreIndex = new HashMap<String, Integer>();
@@ -244,6 +375,7 @@ public class ReasoningSystem {
 
 		truthDy = config.getTruthYPrecision();
 		truthDx = config.getTruthXPrecision();
+		outPointLimit = config.getOutputPointLimit();
 
 		_tmpOne = new FuzzySet(100);
 		_tmpTwo = new FuzzySet(100);
@@ -277,6 +409,7 @@ public class ReasoningSystem {
 
 		truthDy = config.getTruthYPrecision();
 		truthDx = config.getTruthXPrecision();
+		outPointLimit = config.getOutputPointLimit();
 
 		// apply pointers of new operations to rules
 		ListIterator<Rule> it = Rules.listIterator();
@@ -375,9 +508,13 @@ public class ReasoningSystem {
 //ZMIANA 
 			PreS = tmp; // free old memory and set new
 //KONIEC
+			preShape = Arrays.copyOf(preShape, maxpsize);
 		}
 
-		PreS[psize] = fs;
+		// sets do not change after the model is built - store frozen copy
+		// (description is shared with earlier sets of the same shape)
+		PreS[psize] = shapes.intern(fs);
+		preShape[psize] = shapes.getShapeNumber(PreS[psize]);
 		PreIndex.put(fs.getId(), psize); // add search index
 		psize++;
 	}
@@ -410,7 +547,9 @@ public class ReasoningSystem {
 			// KONIEC
 		}
 
-		ConS[csize] = fs;
+		// sets do not change after the model is built - store frozen copy
+		// (description is shared with earlier sets of the same shape)
+		ConS[csize] = shapes.intern(fs);
 		ConIndex.put(fs.getId(), csize); // add search index
 		csize++;
 	}
@@ -679,6 +818,22 @@ public class ReasoningSystem {
 		return alpha;
 	};
 
+	/**
+	 * Sets the limit of points of output sets. After each agregation of rule
+	 * results an output set with more points is simplified (see
+	 * FuzzySet.simplify).
+	 *
+	 * @param limit maximum number of points (0 - no limit). If the parameter value
+	 *              is < 0 then it is set to 0.
+	 */
+	public void setOutputPointLimit(int limit) {
+		outPointLimit = limit > 0 ? limit : 0;
+	}
+
+	public int getOutputPointLimit() {
+		return outPointLimit;
+	}
+
 	public void Process() {
 		// 1. Prepare input variables (i.e. fuzzyfication)
 		int i, j;
@@ -686,11 +841,8 @@ public class ReasoningSystem {
 		for (i = 0; i < isize; i++) {
 //ZMIANA
 			if (ins[i].fuzz != null) {
-				if (ins[i].invalF == null)
-					ins[i].invalF = new FuzzySet();
-				ins[i].invalF.assign(ins[i].fuzz);
+				_fuzzyfyInput(ins[i]);
 //KONIEC ZMIANY
-				ins[i].invalF.fuzzyfy(ins[i].inval);
 			}
 
 		}
@@ -711,11 +863,13 @@ public class ReasoningSystem {
 //            outs[i].outset.AddPoint(outs[i].outset.begin,fill);
 //            outs[i].outset.AddPoint(outs[i].outset.end,fill);
 		}
+		_startAgregation();
 
 		if (autoAlpha)
 			alpha = 0.0; // reset alpha before automatic calculation
 
 		// 3. For all rules
+		_startPremises();
 		Stack<Double> st = new Stack<Double>();
 		ListIterator<Rule> it = Rules.listIterator();
 		double tmpLeft, tmpRight, result;
@@ -736,14 +890,7 @@ public class ReasoningSystem {
 					st.pop();
 				} else if (el.pits[j].iLVar > -1) { // to avoid wrong indexing
 					// left parameter needs to be calculated
-					if (ins[(el.pits[j].iLVar)].invalF != null) { // if left variable is fuzzyfied
-						FuzzySet.processSetsWithNorm(_tmpOne, (ins[el.pits[j].iLVar].invalF), PreS[el.pits[j].iLSet],
-								opIS);
-
-						tmpLeft = _tmpOne.getMaximumMembership();
-					} else { // - left variable is a singleton
-						tmpLeft = PreS[el.pits[j].iLSet].getMembership(ins[el.pits[j].iLVar].inval);
-					}
+					tmpLeft = _premiseMembership(el.pits[j].iLVar, el.pits[j].iLSet);
 				}
 
 				// Calculate operation if available and put membership of the result (premise
@@ -755,15 +902,7 @@ public class ReasoningSystem {
 						st.pop();
 					} else if (el.pits[j].iRVar > -1) { // to avoid wrong indexing
 						// calculate right variable's membership level
-						if (ins[el.pits[j].iRVar].invalF != null) { // Right variable fuzzyfied
-							// *_tmpOne = *(ins[(*it)->pits[j].iLVar].invalF);
-							FuzzySet.processSetsWithNorm(_tmpOne, (ins[el.pits[j].iRVar].invalF),
-									PreS[el.pits[j].iRSet], opIS);
-
-							tmpRight = _tmpOne.getMaximumMembership();
-						} else { // Right variable is a singleton
-							tmpRight = PreS[el.pits[j].iRSet].getMembership(ins[el.pits[j].iRVar].inval);
-						}
+						tmpRight = _premiseMembership(el.pits[j].iRVar, el.pits[j].iRSet);
 					}
 					// calculate output membership level according to defined operation
 					tmpLeft = el.pits[j].op.calc(tmpLeft, tmpRight);
@@ -789,24 +928,21 @@ public class ReasoningSystem {
 
 				// process conclusion set with membership level (reasoning,implication)
 				// - alternative approach
+				// - result is collected for agregation of output variable
 				_tmpTwo.ClearSet();
 				_tmpTwo.addPoint(0.0, result);
-				FuzzySet.processSetsWithNorm(_tmpOne, _tmpTwo, ConS[el.cits[j].iSet], impl);
+				FuzzySet.processSetsWithNorm(_nextAggSet(el.cits[j].iVar), _tmpTwo, ConS[el.cits[j].iSet], impl);
 
 				// update alpha value - one step
 				if (autoAlpha) {
 					alpha += impl.calc(result, 0.0);
 				}
-
-				// agregate result to a set of output variable
-				FuzzySet.processSetsWithNorm(_tmpTwo, _tmpOne, outs[el.cits[j].iVar].outset, ruleAgregator);
-				(_tmpTwo).PackFlatSections();
-//ZMIANA
-				outs[el.cits[j].iVar].outset.assign(_tmpTwo);
-//KONIEC
 			}
 		} // loop through all rules
 
+		// agregate collected rule results
+		_finishAgregation();
+
 		if (autoAlpha)
 			alpha = alpha / Rules.size(); // finish automatic alpha calculation
 
@@ -826,10 +962,7 @@ public class ReasoningSystem {
 		// fuzzyfy input values if fuzzyfier is configured
 		for (i = 0; i < isize; i++) {
 			if (ins[i].fuzz != null) {
-				if (ins[i].invalF == null)
-					ins[i].invalF = new FuzzySet();
-				ins[i].invalF.assign(ins[i].fuzz);
-				ins[i].invalF.fuzzyfy(ins[i].inval);
+				_fuzzyfyInput(ins[i]);
 			}
 
 		}
@@ -847,11 +980,13 @@ public class ReasoningSystem {
 //            outs[i].outset.AddPoint(outs[i].outset.begin,fill);
 //            outs[i].outset.AddPoint(outs[i].outset.end,fill);
 		}
+		_startAgregation();
 
 		if (autoAlpha)
 			alpha = 0.0; // reset alpha before automatic calculation
 
 		// 3. For all rules
+		_startPremises();
 		Stack<Double> st = new Stack<Double>();
 		ListIterator<Rule> it = Rules.listIterator();
 		double tmpLeft, tmpRight, result;
@@ -872,15 +1007,7 @@ public class ReasoningSystem {
 					st.pop();
 				} else if (el.pits[j].iLVar > -1) { // to avoid wrong indexing
 					// left parameter needs to be calculated
-					if (ins[el.pits[j].iLVar].invalF != null) { // if left variable is fuzzyfied
-						// *_tmpOne = *(ins[(*it)->pits[j].iLVar].invalF);
-						FuzzySet.processSetsWithNorm(_tmpOne, (ins[el.pits[j].iLVar].invalF), PreS[el.pits[j].iLSet],
-								opIS);
-
-						tmpLeft = _tmpOne.getMaximumMembership();
-					} else { // - left variable is a singleton
-						tmpLeft = PreS[el.pits[j].iLSet].getMembership(ins[el.pits[j].iLVar].inval);
-					}
+					tmpLeft = _premiseMembership(el.pits[j].iLVar, el.pits[j].iLSet);
 				}
 
 				// Calculate operation if available and put membership of the result (premise
@@ -892,15 +1019,7 @@ public class ReasoningSystem {
 						st.pop();
 					} else if (el.pits[j].iRVar > -1) { // to avoid wrong indexing
 						// calculate right variable's membership level
-						if (ins[el.pits[j].iRVar].invalF != null) { // Right variable fuzzyfied
-							// *_tmpOne = *(ins[(*it)->pits[j].iLVar].invalF);
-							FuzzySet.processSetsWithNorm(_tmpOne, (ins[el.pits[j].iRVar].invalF),
-									PreS[el.pits[j].iRSet], opIS);
-
-							tmpRight = _tmpOne.getMaximumMembership();
-						} else { // Right variable is a singleton
-							tmpRight = PreS[el.pits[j].iRSet].getMembership(ins[el.pits[j].iRVar].inval);
-						}
+						tmpRight = _premiseMembership(el.pits[j].iRVar, el.pits[j].iRSet);
 					}
 					// calculate output membership level according to defined operation
 					tmpLeft = el.pits[j].op.calc(tmpLeft, tmpRight);
@@ -924,22 +1043,19 @@ public class ReasoningSystem {
 				// copy conclusion set
 				// *_tmpOne = *ConS[(*it)->cits[j].iSet];
 				// process conclusion set with truth function
-				_tmpOne.ProcessSetWithTruthFunction(_tmpTwo, ConS[el.cits[j].iSet]);
+				// - result is collected for agregation of output variable
+				_nextAggSet(el.cits[j].iVar).ProcessSetWithTruthFunction(_tmpTwo, ConS[el.cits[j].iSet]);
 
 				// update alpha value - one step
 				if (autoAlpha) {
 					alpha += _tmpTwo.getMembership(0.0);
 				}
-
-				// agregate result to a set of output variable
-				FuzzySet.processSetsWithNorm(_tmpTwo, _tmpOne, outs[el.cits[j].iVar].outset, ruleAgregator);
-				(_tmpTwo).PackFlatSections();
-//ZMIANA
-				outs[el.cits[j].iVar].outset.assign(_tmpTwo);
-//KONIEC
 			}
 		} // loop through all rules
 
+		// agregate collected rule results
+		_finishAgregation();
+
 		if (autoAlpha)
 			alpha = alpha / Rules.size(); // finish automatic alpha calculation
 
@@ -968,12 +1084,9 @@ public class ReasoningSystem {
 				os.write("Input Var " + i + ": " + ins[i].inval + "\n");
 				// ----END report
 				if (ins[i].fuzz != null) {
-					if (ins[i].invalF == null)
-						ins[i].invalF = new FuzzySet();
-					ins[i].invalF.assign(ins[i].fuzz);
-					ins[i].invalF.fuzzyfy(ins[i].inval);
+					_fuzzyfyInput(ins[i]);
 					// ----START report
-					os.write("Fuzzyfied: " + ins[i].invalF + "\n");
+					os.write("Fuzzyfied: " + ins[i].getFuzzyfied() + "\n");
 					// ----END report
 				}
 
@@ -1038,15 +1151,15 @@ public class ReasoningSystem {
 						// ----END report
 					} else if (el.pits[j].iLVar > -1) { // to avoid wrong indexing
 						// left parameter needs to be calculated
-						if (ins[el.pits[j].iLVar].invalF != null) { // if left variable is fuzzyfied
+						if (ins[el.pits[j].iLVar].invalV != null) { // if left variable is fuzzyfied
 							// *_tmpOne = *(ins[(*it)->pits[j].iLVar].invalF);
-							FuzzySet.processSetsWithNorm(_tmpOne, (ins[el.pits[j].iLVar].invalF),
+							FuzzySet.processSetsWithNorm(_tmpOne, (ins[el.pits[j].iLVar].invalV),
 									PreS[el.pits[j].iLSet], opIS);
 
 							tmpLeft = _tmpOne.getMaximumMembership();
 							// ----START report
 							os.write("left variable '" + ins[el.pits[j].iLVar].id + "\n");
-							os.write("' fuzzyfied (set): " + (ins[el.pits[j].iLVar].invalF) + "\n");
+							os.write("' fuzzyfied (set): " + (ins[el.pits[j].iLVar].getFuzzyfied()) + "\n");
 							os.write("left premise set '" + PreS[el.pits[j].iLSet].getId());
 							os.write("' : " + PreS[el.pits[j].iLSet] + "\n");
 							os.write("result set: " + _tmpOne + "\n");
@@ -1076,15 +1189,15 @@ public class ReasoningSystem {
 							// ----END report
 						} else if (el.pits[j].iRVar > -1) { // to avoid wrong indexing
 							// calculate right variable's membership level
-							if (ins[el.pits[j].iRVar].invalF != null) { // Right variable fuzzyfied
+							if (ins[el.pits[j].iRVar].invalV != null) { // Right variable fuzzyfied
 								// *_tmpOne = *(ins[(*it)->pits[j].iLVar].invalF);
-								FuzzySet.processSetsWithNorm(_tmpOne, (ins[el.pits[j].iRVar].invalF),
+								FuzzySet.processSetsWithNorm(_tmpOne, (ins[el.pits[j].iRVar].invalV),
 										PreS[el.pits[j].iRSet], opIS);
 
 								tmpRight = _tmpOne.getMaximumMembership();
 								// ----START report
 								os.write("right variable '" + ins[el.pits[j].iRVar].id);
-								os.write("' fuzzyfied (set): " + (ins[el.pits[j].iRVar].invalF) + "\n");
+								os.write("' fuzzyfied (set): " + (ins[el.pits[j].iRVar].getFuzzyfied()) + "\n");
 								os.write("right premise set '" + PreS[el.pits[j].iRSet].getId());
 								os.write("': " + PreS[el.pits[j].iRSet] + "\n");
 								os.write("result set: " + _tmpOne + "\n");
@@ -1151,6 +1264,7 @@ public class ReasoningSystem {
 					// agregate result to a set of output variable
 					FuzzySet.processSetsWithNorm(_tmpTwo, _tmpOne, outs[el.cits[j].iVar].outset, ruleAgregator);
 					(_tmpTwo).PackFlatSections();
+					_limitPoints(_tmpTwo);
 					// ----START report
 					os.write("Conclusion set '" + ConS[el.cits[j].iSet].getId());
 					os.write("': " + ConS[el.cits[j].iSet] + "\n");
@@ -1201,10 +1315,7 @@ public class ReasoningSystem {
 		// fuzzyfy input values if fuzzyfier is configured
 		for (i = 0; i < isize; i++) {
 			if (ins[i].fuzz != null) {
-				if (ins[i].invalF == null)
-					ins[i].invalF = new FuzzySet();
-				ins[i].invalF.assign(ins[i].fuzz);
-				ins[i].invalF.fuzzyfy(ins[i].inval);
+				_fuzzyfyInput(ins[i]);
 			}
 
 		}
@@ -1222,6 +1333,7 @@ public class ReasoningSystem {
 //            outs[i].outset.AddPoint(outs[i].outset.begin,fill);
 //            outs[i].outset.AddPoint(outs[i].outset.end,fill);
 		}
+		_startAgregation();
 
 		if (autoAlpha)
 			alpha = 0.0; // reset alpha before automatic calculation
@@ -1249,9 +1361,9 @@ public class ReasoningSystem {
 					st.pop();
 				} else if (el.pits[j].iLVar > -1) { // to avoid wrong indexing
 					// left parameter needs to be calculated
-					if (ins[el.pits[j].iLVar].invalF != null) { // if left variable is fuzzyfied
+					if (ins[el.pits[j].iLVar].invalV != null) { // if left variable is fuzzyfied
 						// calculate fuzzy truth function for fuzzyfied input
-						FuzzySet.calcIsTruthFunction(tmpLeft, ins[el.pits[j].iLVar].invalF, PreS[el.pits[j].iLSet],
+						FuzzySet.calcIsTruthFunction(tmpLeft, ins[el.pits[j].iLVar].invalV, PreS[el.pits[j].iLSet],
 								truthDy, truthDx);
 					} else { // - left variable is a singleton
 						double tmp = PreS[el.pits[j].iLSet].getMembership(ins[el.pits[j].iLVar].inval);
@@ -1275,9 +1387,9 @@ public class ReasoningSystem {
 						st.pop();
 					} else if (el.pits[j].iRVar > -1) { // to avoid wrong indexing
 						// calculate right variable's membership level
-						if (ins[el.pits[j].iRVar].invalF != null) { // Right variable fuzzyfied
+						if (ins[el.pits[j].iRVar].invalV != null) { // Right variable fuzzyfied
 							// calculate fuzzy truth function for fuzzyfied input
-							FuzzySet.calcIsTruthFunction(tmpRight, ins[el.pits[j].iRVar].invalF, PreS[el.pits[j].iRSet],
+							FuzzySet.calcIsTruthFunction(tmpRight, ins[el.pits[j].iRVar].invalV, PreS[el.pits[j].iRSet],
 									truthDy, truthDx);
 						} else { // Right variable is a singleton
 							double tmp = PreS[el.pits[j].iRSet].getMembership(ins[el.pits[j].iRVar].inval);
@@ -1317,22 +1429,19 @@ public class ReasoningSystem {
 				// copy conclusion set
 				// *_tmpOne = *ConS[(*it)->cits[j].iSet];
 				// process conclusion set with truth function
-				_tmpOne.ProcessSetWithTruthFunction(_tmpTwo, ConS[el.cits[j].iSet]);
+				// - result is collected for agregation of output variable
+				_nextAggSet(el.cits[j].iVar).ProcessSetWithTruthFunction(_tmpTwo, ConS[el.cits[j].iSet]);
 
 				// update alpha value - one step
 				if (autoAlpha) {
 					alpha += _tmpTwo.getMembership(0.0);
 				}
-
-				// agregate result to a set of output variable
-				FuzzySet.processSetsWithNorm(_tmpTwo, _tmpOne, outs[el.cits[j].iVar].outset, ruleAgregator);
-				(_tmpTwo).PackFlatSections();
-//ZMIANA
-				outs[el.cits[j].iVar].outset.assign(_tmpTwo);
-//KONIEC
 			}
 		} // loop through all rules
 
+		// agregate collected rule results
+		_finishAgregation();
+
 		if (autoAlpha)
 			alpha = alpha / Rules.size(); // finish automatic alpha calculation
 
@@ -1360,10 +1469,7 @@ public class ReasoningSystem {
 				os.write("Input Var " + i + ": " + ins[i].inval + "\n");
 				// ----END report
 				if (ins[i].fuzz != null) {
-					if (ins[i].invalF == null)
-						ins[i].invalF = new FuzzySet();
-					ins[i].invalF.assign(ins[i].fuzz);
-					ins[i].invalF.fuzzyfy(ins[i].inval);
+					_fuzzyfyInput(ins[i]);
 				}
 
 			}
@@ -1427,13 +1533,13 @@ public class ReasoningSystem {
 						// ----END report
 					} else if (el.pits[j].iLVar > -1) { // to avoid wrong indexing
 						// left parameter needs to be calculated
-						if (ins[el.pits[j].iLVar].invalF != null) { // if left variable is fuzzyfied
+						if (ins[el.pits[j].iLVar].invalV != null) { // if left variable is fuzzyfied
 							// calculate fuzzy truth function for fuzzyfied input
-							FuzzySet.calcIsTruthFunction(tmpLeft, ins[el.pits[j].iLVar].invalF, PreS[el.pits[j].iLSet],
+							FuzzySet.calcIsTruthFunction(tmpLeft, ins[el.pits[j].iLVar].invalV, PreS[el.pits[j].iLSet],
 									truthDy, truthDx);
 							// ----START report
 							os.write("left variable '" + ins[el.pits[j].iLVar].id + "\n");
-							os.write("' fuzzyfied (set): " + (ins[el.pits[j].iLVar].invalF) + "\n");
+							os.write("' fuzzyfied (set): " + (ins[el.pits[j].iLVar].getFuzzyfied()) + "\n");
 							os.write("left premise set '" + PreS[el.pits[j].iLSet].getId());
 							os.write("' : " + PreS[el.pits[j].iLSet] + "\n");
 							os.write("left truth function: " + tmpLeft + "\n");
@@ -1469,13 +1575,13 @@ public class ReasoningSystem {
 							// ----END report
 						} else if (el.pits[j].iRVar > -1) { // to avoid wrong indexing
 							// calculate right variable's membership level
-							if (ins[el.pits[j].iRVar].invalF != null) { // Right variable fuzzyfied
+							if (ins[el.pits[j].iRVar].invalV != null) { // Right variable fuzzyfied
 								// calculate fuzzy truth function for fuzzyfied input
-								FuzzySet.calcIsTruthFunction(tmpRight, ins[el.pits[j].iRVar].invalF,
+								FuzzySet.calcIsTruthFunction(tmpRight, ins[el.pits[j].iRVar].invalV,
 										PreS[el.pits[j].iRSet], truthDy, truthDx);
 								// ----START report
 								os.write("right variable '" + ins[el.pits[j].iRVar].id + "\n");
-								os.write("' fuzzyfied (set): " + (ins[el.pits[j].iRVar].invalF) + "\n");
+								os.write("' fuzzyfied (set): " + (ins[el.pits[j].iRVar].getFuzzyfied()) + "\n");
 								os.write("right premise set '" + PreS[el.pits[j].iRSet].getId());
 								os.write("' : " + PreS[el.pits[j].iRSet] + "\n");
 								os.write("right truth function: " + tmpRight + "\n");
@@ -1548,6 +1654,7 @@ public class ReasoningSystem {
 					// agregate result to a set of output variable
 					FuzzySet.processSetsWithNorm(_tmpTwo, _tmpOne, outs[el.cits[j].iVar].outset, ruleAgregator);
 					(_tmpTwo).PackFlatSections();
+					_limitPoints(_tmpTwo);
 					// ----START report
 					os.write("Conclusion set '" + ConS[el.cits[j].iSet].getId());
 					os.write("': " + ConS[el.cits[j].iSet] + "\n");
@@ -30,6 +30,8 @@ public class SystemConfig {
 
     double truthYPrecision;
     double truthXPrecision;
+
+    int outPointLimit;
     
     public SystemConfig(){
     	inputWidth=0;
@@ -49,6 +51,7 @@ public class SystemConfig {
         Extended=false;
         truthYPrecision=0.01;
         truthXPrecision=0.001;
+        outPointLimit=0;
     }
 	public SystemConfig(short system_type){
 		Extended = false;
@@ -61,6 +64,7 @@ public class SystemConfig {
 		AutoAlpha = false;
 		truthYPrecision = 0.01;
 		truthXPrecision = 0.001;
+		outPointLimit = 0;
         truthCompType = TNorm.TN_MINIMUM;
 
 		switch(system_type){
@@ -99,6 +103,10 @@ public class SystemConfig {
 	public void setTruthPrecision(double mindy, double mindx){
              if (mindy<=0.0 || mindx <=0.0) return;
              truthYPrecision = mindy; truthXPrecision = mindx; }
+	// limit of points of agregated output sets (0 - no limit)
+	public void setOutputPointLimit(int limit){
+             if (limit<0) limit = 0;
+             outPointLimit = limit; }
 
 	public boolean getExtended(){ return Extended; };
 	public int getInputWidth(){ return inputWidth; };
@@ -117,4 +125,5 @@ public class SystemConfig {
 	public boolean getAutoAlpha(){ return AutoAlpha; };
 	public double getTruthYPrecision(){return truthYPrecision;}
 	public double getTruthXPrecision(){return truthXPrecision;}
+	public int getOutputPointLimit(){return outPointLimit;}
 }
@@ -0,0 +1,93 @@
+package fuzzlib.shapes;
+
+import fuzzlib.FuzzySet;
+
+/**
+ * Generalized bell membership function: 1 / (1 + |(x - center) / width|^(2
+ * slope)).
+ */
+public class SHBell extends Shape {
+	// membership at bounds of the piecewise-linear description
+	private static final double TAIL = 0.001;
+
+	private final double center;
+	private final double width;
+	private final double slope;
+
+	/**
+	 * @param center center of the bell
+	 * @param width  half width of the bell at membership 0.5. If the parameter
+	 *               value is <= 0 then it is set to 0.01.
+	 * @param slope  steepness of slopes. If the parameter value is <= 0 then it is
+	 *               set to 1.
+	 */
+	public SHBell(double center, double width, double slope) {
+		this.type = Shape.SH_BELL;
+		this.center = center;
+		this.width = width > 0.0 ? width : 0.01;
+		this.slope = slope > 0.0 ? slope : 1.0;
+	}
+
+	public double getCenter() {
+		return center;
+	}
+
+	public double getWidth() {
+		return width;
+	}
+
+	public double getSlope() {
+		return slope;
+	}
+
+	public double getMembership(double x) {
+		return 1.0 / (1.0 + Math.pow(Math.abs((x - center) / width), 2.0 * slope));
+	}
+
+	public double getCoreMin() {
+		return center;
+	}
+
+	public double getCoreMax() {
+		return center;
+	}
+
+	public double getSupportMin() {
+		return Double.NEGATIVE_INFINITY;
+	}
+
+	public double getSupportMax() {
+		return Double.POSITIVE_INFINITY;
+	}
+
+	/**
+	 * @return area under membership function (infinity for slope <= 0.5)
+	 */
+	public double getArea() {
+		if (slope <= 0.5)
+			return Double.POSITIVE_INFINITY;
+		return width * Math.PI / (slope * Math.sin(Math.PI / (2.0 * slope)));
+	}
+
+	public double getCentroid() {
+		return center;
+	}
+
+	// described range ends where membership falls to TAIL
+	public FuzzySet toFuzzySet(FuzzySet dest) {
+		double d = width * Math.pow((1.0 - TAIL) / TAIL, 1.0 / (2.0 * slope));
+		return toFuzzySet(dest, center - d, center + d, DEFAULT_LEVELS);
+	}
+
+	private double _distance(double h) {
+		return width * Math.pow((1.0 - h) / h, 1.0 / (2.0 * slope));
+	}
+
+	protected double leftX(double h) {
+		return center - _distance(h);
+	}
+
+	protected double rightX(double h) {
+		return center + _distance(h);
+	}
+}
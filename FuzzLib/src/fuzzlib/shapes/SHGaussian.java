@@ -0,0 +1,88 @@
+package fuzzlib.shapes;
+
+import fuzzlib.FuzzySet;
+
+/**
+ * Gaussian membership function: exp(-(x-center)^2 / (2 width^2)).
+ */
+public class SHGaussian extends Shape {
+	private final double center;
+	private final double width;
+
+	/**
+	 * @param center center of gaussian peek
+	 * @param width  width of function's shape (standard deviation). If the
+	 *               parameter value is <= 0 then it is set to 0.01.
+	 */
+	public SHGaussian(double center, double width) {
+		this.type = Shape.SH_GAUSSIAN;
+		this.center = center;
+		this.width = width > 0.0 ? width : 0.01;
+	}
+
+	public double getCenter() {
+		return center;
+	}
+
+	public double getWidth() {
+		return width;
+	}
+
+	public double getMembership(double x) {
+		double t = (x - center) / width;
+		return Math.exp(-t * t / 2.0);
+	}
+
+	public double getCoreMin() {
+		return center;
+	}
+
+	public double getCoreMax() {
+		return center;
+	}
+
+	public double getSupportMin() {
+		return Double.NEGATIVE_INFINITY;
+	}
+
+	public double getSupportMax() {
+		return Double.POSITIVE_INFINITY;
+	}
+
+	public double getArea() {
+		return width * Math.sqrt(2.0 * Math.PI);
+	}
+
+	public double getCentroid() {
+		return center;
+	}
+
+	// the same description as FuzzySet.newGaussian
+	public FuzzySet toFuzzySet(FuzzySet dest) {
+		return dest.newGaussian(center, width);
+	}
+
+	protected double leftX(double h) {
+		return center - width * Math.sqrt(-2.0 * Math.log(h));
+	}
+
+	protected double rightX(double h) {
+		return center + width * Math.sqrt(-2.0 * Math.log(h));
+	}
+
+	protected int leftKind() {
+		return SLOPE_GAUSS;
+	}
+
+	protected int rightKind() {
+		return SLOPE_GAUSS;
+	}
+
+	protected double leftWidth() {
+		return width;
+	}
+
+	protected double rightWidth() {
+		return width;
+	}
+}
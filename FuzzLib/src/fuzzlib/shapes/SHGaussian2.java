@@ -0,0 +1,90 @@
+package fuzzlib.shapes;
+
+import fuzzlib.FuzzySet;
+
+/**
+ * Two-sided gaussian membership function - each side of the peek has its own
+ * width (standard deviation).
+ */
+public class SHGaussian2 extends Shape {
+	private final double center;
+	private final double leftWidth;
+	private final double rightWidth;
+
+	/**
+	 * @param center     center of gaussian peek
+	 * @param leftWidth  width of the left side. If the parameter value is <= 0
+	 *                   then it is set to 0.01.
+	 * @param rightWidth width of the right side. If the parameter value is <= 0
+	 *                   then it is set to 0.01.
+	 */
+	public SHGaussian2(double center, double leftWidth, double rightWidth) {
+		this.type = Shape.SH_GAUSSIAN2;
+		this.center = center;
+		this.leftWidth = leftWidth > 0.0 ? leftWidth : 0.01;
+		this.rightWidth = rightWidth > 0.0 ? rightWidth : 0.01;
+	}
+
+	public double getCenter() {
+		return center;
+	}
+
+	public double getMembership(double x) {
+		double t = (x - center) / (x < center ? leftWidth : rightWidth);
+		return Math.exp(-t * t / 2.0);
+	}
+
+	public double getCoreMin() {
+		return center;
+	}
+
+	public double getCoreMax() {
+		return center;
+	}
+
+	public double getSupportMin() {
+		return Double.NEGATIVE_INFINITY;
+	}
+
+	public double getSupportMax() {
+		return Double.POSITIVE_INFINITY;
+	}
+
+	public double getArea() {
+		return (leftWidth + rightWidth) * Math.sqrt(Math.PI / 2.0);
+	}
+
+	// integral of (x-center)*f(x) equals rightWidth^2 - leftWidth^2
+	public double getCentroid() {
+		return center + (rightWidth * rightWidth - leftWidth * leftWidth) / getArea();
+	}
+
+	// the same description as FuzzySet.newGaussian
+	public FuzzySet toFuzzySet(FuzzySet dest) {
+		return dest.newGaussian(center, leftWidth, rightWidth);
+	}
+
+	protected double leftX(double h) {
+		return center - leftWidth * Math.sqrt(-2.0 * Math.log(h));
+	}
+
+	protected double rightX(double h) {
+		return center + rightWidth * Math.sqrt(-2.0 * Math.log(h));
+	}
+
+	protected int leftKind() {
+		return SLOPE_GAUSS;
+	}
+
+	protected int rightKind() {
+		return SLOPE_GAUSS;
+	}
+
+	protected double leftWidth() {
+		return leftWidth;
+	}
+
+	protected double rightWidth() {
+		return rightWidth;
+	}
+}
@@ -0,0 +1,126 @@
+package fuzzlib.shapes;
+
+import fuzzlib.DefuzMethod;
+import fuzzlib.FuzzySet;
+
+/**
+ * Sigmoid membership function: 1 / (1 + exp(-slope (x - center))). The function
+ * is monotone, so its core lies in infinity. Area, centroid and the
+ * piecewise-linear description are calculated over a given domain.
+ */
+public class SHSigmoid extends Shape {
+	// memberships of additional points closing the tails of the description
+	private static final double TAIL = 0.001;
+	// membership error of the description used for centroid calculation
+	private static final double CENTROID_ERROR = 0.0001;
+
+	private final double center;
+	private final double slope;
+	private final double domainMin;
+	private final double domainMax;
+
+	/**
+	 * @param center    x value with membership 0.5
+	 * @param slope     steepness of the function, increasing for slope > 0 and
+	 *                  decreasing for slope < 0. If the parameter value is 0 then
+	 *                  it is set to 0.01.
+	 * @param domainMin left bound of the domain
+	 * @param domainMax right bound of the domain. If it is lower than domainMin,
+	 *                  the bounds are swapped.
+	 */
+	public SHSigmoid(double center, double slope, double domainMin, double domainMax) {
+		this.type = Shape.SH_SIGMOID;
+		this.center = center;
+		this.slope = slope != 0.0 ? slope : 0.01;
+		this.domainMin = domainMin < domainMax ? domainMin : domainMax;
+		this.domainMax = domainMin < domainMax ? domainMax : domainMin;
+	}
+
+	public double getCenter() {
+		return center;
+	}
+
+	public double getSlope() {
+		return slope;
+	}
+
+	public double getMembership(double x) {
+		return 1.0 / (1.0 + Math.exp(-slope * (x - center)));
+	}
+
+	public double getCoreMin() {
+		return slope > 0.0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+	}
+
+	public double getCoreMax() {
+		return getCoreMin();
+	}
+
+	public double getSupportMin() {
+		return Double.NEGATIVE_INFINITY;
+	}
+
+	public double getSupportMax() {
+		return Double.POSITIVE_INFINITY;
+	}
+
+	// softplus: ln(1 + exp(t)) without overflow
+	private static double _softplus(double t) {
+		return t > 0.0 ? t + Math.log1p(Math.exp(-t)) : Math.log1p(Math.exp(t));
+	}
+
+	/**
+	 * @return area under membership function over the domain
+	 */
+	public double getArea() {
+		return (_softplus(slope * (domainMax - center)) - _softplus(slope * (domainMin - center))) / slope;
+	}
+
+	/**
+	 * Centroid has no elementary closed form - it is calculated on the
+	 * piecewise-linear description with membership error below CENTROID_ERROR.
+	 *
+	 * @return center of gravity over the domain
+	 */
+	public double getCentroid() {
+		return toFuzzySetAdaptive(new FuzzySet(), CENTROID_ERROR).DeFuzzyfyEx(DefuzMethod.DF_COG);
+	}
+
+	public FuzzySet toFuzzySet(FuzzySet dest) {
+		toFuzzySet(dest, domainMin, domainMax, DEFAULT_LEVELS);
+		// without these points the tails are described by long segments from the
+		// domain bounds to the first and the last level
+		double x = _levelX(TAIL);
+		if (x > domainMin && x < domainMax)
+			dest.addPoint(x, TAIL);
+		x = _levelX(1.0 - TAIL);
+		if (x > domainMin && x < domainMax)
+			dest.addPoint(x, 1.0 - TAIL);
+		return dest;
+	}
+
+	/**
+	 * Creates piecewise-linear description of the domain with the fewest points
+	 * keeping absolute error of membership within a given bound (approximate -
+	 * see Shape.toFuzzySetAdaptive).
+	 *
+	 * @param dest     destination set (previous description is lost)
+	 * @param maxError maximum absolute error of membership (approximate)
+	 * @return destination set
+	 */
+	public FuzzySet toFuzzySetAdaptive(FuzzySet dest, double maxError) {
+		return toFuzzySetAdaptive(dest, domainMin, domainMax, maxError);
+	}
+
+	private double _levelX(double h) {
+		return center - Math.log((1.0 - h) / h) / slope;
+	}
+
+	protected double leftX(double h) {
+		return slope > 0.0 ? _levelX(h) : Double.NEGATIVE_INFINITY;
+	}
+
+	protected double rightX(double h) {
+		return slope < 0.0 ? _levelX(h) : Double.POSITIVE_INFINITY;
+	}
+}
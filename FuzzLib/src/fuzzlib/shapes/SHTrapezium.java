@@ -0,0 +1,108 @@
+package fuzzlib.shapes;
+
+import fuzzlib.FuzzySet;
+
+/**
+ * Trapezoidal membership function given by its core and widths of slopes.
+ */
+public class SHTrapezium extends Shape {
+	private final double coreMin;
+	private final double coreMax;
+	private final double leftWidth;
+	private final double rightWidth;
+
+	/**
+	 * @param coreMin    left bound of the core (membership = 1)
+	 * @param coreMax    right bound of the core. If it is lower than coreMin, the
+	 *                   bounds are swapped.
+	 * @param leftWidth  width of the left slope. If the parameter value is <= 0
+	 *                   then it is set to 0.01.
+	 * @param rightWidth width of the right slope. If the parameter value is <= 0
+	 *                   then it is set to 0.01.
+	 */
+	public SHTrapezium(double coreMin, double coreMax, double leftWidth, double rightWidth) {
+		this.type = Shape.SH_TRAPEZIUM;
+		this.coreMin = coreMin < coreMax ? coreMin : coreMax;
+		this.coreMax = coreMin < coreMax ? coreMax : coreMin;
+		this.leftWidth = leftWidth > 0.0 ? leftWidth : 0.01;
+		this.rightWidth = rightWidth > 0.0 ? rightWidth : 0.01;
+	}
+
+	public double getMembership(double x) {
+		if (x <= coreMin - leftWidth || x >= coreMax + rightWidth)
+			return 0.0;
+		if (x < coreMin)
+			return (x - coreMin + leftWidth) / leftWidth;
+		if (x > coreMax)
+			return (coreMax + rightWidth - x) / rightWidth;
+		return 1.0;
+	}
+
+	public double getCoreMin() {
+		return coreMin;
+	}
+
+	public double getCoreMax() {
+		return coreMax;
+	}
+
+	public double getSupportMin() {
+		return coreMin - leftWidth;
+	}
+
+	public double getSupportMax() {
+		return coreMax + rightWidth;
+	}
+
+	public double getArea() {
+		return coreMax - coreMin + (leftWidth + rightWidth) / 2.0;
+	}
+
+	// sum of moments of the left triangle, the core rectangle and the right
+	// triangle
+	public double getCentroid() {
+		double al = leftWidth / 2.0, ac = coreMax - coreMin, ar = rightWidth / 2.0;
+		double m = al * (coreMin - leftWidth / 3.0) + ac * (coreMin + coreMax) / 2.0
+				+ ar * (coreMax + rightWidth / 3.0);
+		return m / (al + ac + ar);
+	}
+
+	// piecewise-linear description is exact
+	public FuzzySet toFuzzySetAdaptive(FuzzySet dest, double maxError) {
+		return toFuzzySet(dest);
+	}
+
+	public FuzzySet toFuzzySet(FuzzySet dest) {
+		dest.ClearSet();
+		dest.addPoint(coreMin - leftWidth, 0.0);
+		dest.addPoint(coreMin, 1.0);
+		if (coreMax > coreMin)
+			dest.addPoint(coreMax, 1.0);
+		dest.addPoint(coreMax + rightWidth, 0.0);
+		return dest;
+	}
+
+	protected double leftX(double h) {
+		return coreMin - leftWidth * (1.0 - h);
+	}
+
+	protected double rightX(double h) {
+		return coreMax + rightWidth * (1.0 - h);
+	}
+
+	protected int leftKind() {
+		return SLOPE_LINEAR;
+	}
+
+	protected int rightKind() {
+		return SLOPE_LINEAR;
+	}
+
+	protected double leftWidth() {
+		return leftWidth;
+	}
+
+	protected double rightWidth() {
+		return rightWidth;
+	}
+}
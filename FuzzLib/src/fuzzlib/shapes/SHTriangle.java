@@ -0,0 +1,110 @@
+package fuzzlib.shapes;
+
+import fuzzlib.FuzzySet;
+
+/**
+ * Triangular membership function. Widths are distances from the peek to the
+ * feet of the triangle (unlike FuzzySet.newTriangle with three parameters they
+ * are not doubled).
+ */
+public class SHTriangle extends Shape {
+	private final double center;
+	private final double leftWidth;
+	private final double rightWidth;
+
+	/**
+	 * @param center center of peek
+	 * @param width  distance from the peek to each foot. If the parameter value is
+	 *               <= 0 then it is set to 0.01.
+	 */
+	public SHTriangle(double center, double width) {
+		this(center, width, width);
+	}
+
+	/**
+	 * @param center     center of peek
+	 * @param leftWidth  distance from the peek to the left foot. If the parameter
+	 *                   value is <= 0 then it is set to 0.01.
+	 * @param rightWidth distance from the peek to the right foot. If the parameter
+	 *                   value is <= 0 then it is set to 0.01.
+	 */
+	public SHTriangle(double center, double leftWidth, double rightWidth) {
+		this.type = Shape.SH_TRIANGLE;
+		this.center = center;
+		this.leftWidth = leftWidth > 0.0 ? leftWidth : 0.01;
+		this.rightWidth = rightWidth > 0.0 ? rightWidth : 0.01;
+	}
+
+	public double getCenter() {
+		return center;
+	}
+
+	public double getMembership(double x) {
+		if (x <= center - leftWidth || x >= center + rightWidth)
+			return 0.0;
+		if (x < center)
+			return (x - center + leftWidth) / leftWidth;
+		return (center + rightWidth - x) / rightWidth;
+	}
+
+	public double getCoreMin() {
+		return center;
+	}
+
+	public double getCoreMax() {
+		return center;
+	}
+
+	public double getSupportMin() {
+		return center - leftWidth;
+	}
+
+	public double getSupportMax() {
+		return center + rightWidth;
+	}
+
+	public double getArea() {
+		return (leftWidth + rightWidth) / 2.0;
+	}
+
+	public double getCentroid() {
+		return center + (rightWidth - leftWidth) / 3.0;
+	}
+
+	// piecewise-linear description is exact
+	public FuzzySet toFuzzySetAdaptive(FuzzySet dest, double maxError) {
+		return toFuzzySet(dest);
+	}
+
+	public FuzzySet toFuzzySet(FuzzySet dest) {
+		dest.ClearSet();
+		dest.addPoint(center - leftWidth, 0.0);
+		dest.addPoint(center, 1.0);
+		dest.addPoint(center + rightWidth, 0.0);
+		return dest;
+	}
+
+	protected double leftX(double h) {
+		return center - leftWidth * (1.0 - h);
+	}
+
+	protected double rightX(double h) {
+		return center + rightWidth * (1.0 - h);
+	}
+
+	protected int leftKind() {
+		return SLOPE_LINEAR;
+	}
+
+	protected int rightKind() {
+		return SLOPE_LINEAR;
+	}
+
+	protected double leftWidth() {
+		return leftWidth;
+	}
+
+	protected double rightWidth() {
+		return rightWidth;
+	}
+}
@@ -0,0 +1,349 @@
+package fuzzlib.shapes;
+
+import fuzzlib.FuzzySet;
+
+/**
+ * Shape is a normal (height 1), unimodal or monotone membership function given
+ * by a formula. Membership, area, centroid and height of intersection with
+ * another shape are calculated analytically. A piecewise-linear FuzzySet is
+ * created only when needed (toFuzzySet).
+ *
+ * Each shape has a core [getCoreMin(), getCoreMax()] with membership 1 (it can
+ * lie in infinity for sigmoids), an increasing slope on the left of the core
+ * and a decreasing slope on the right.
+ */
+public abstract class Shape {
+	protected short type;
+	private static final short MIN = 500;
+	private static final short MAX = 599;
+	public static final short SH_GAUSSIAN = 500;
+	public static final short SH_GAUSSIAN2 = 501;
+	public static final short SH_TRIANGLE = 502;
+	public static final short SH_TRAPEZIUM = 503;
+	public static final short SH_SIGMOID = 504;
+	public static final short SH_BELL = 505;
+
+	// kinds of slopes with closed form of intersection:
+	// x = core -/+ width * u(h), where u(h) = 1-h (linear) or sqrt(-2ln(h)) (gauss)
+	protected static final int SLOPE_OTHER = 0;
+	protected static final int SLOPE_LINEAR = 1;
+	protected static final int SLOPE_GAUSS = 2;
+
+	// number of membership levels used for discretization of slopes
+	public static final int DEFAULT_LEVELS = 20;
+
+	public short getType() {
+		return type;
+	}
+
+	public static boolean isShape(short shape_type) {
+		if ((shape_type >= MIN) && (shape_type <= MAX))
+			return true;
+		else
+			return false;
+	}
+
+	/**
+	 * @param x x value
+	 * @return membership of x
+	 */
+	public abstract double getMembership(double x);
+
+	/**
+	 * @return left bound of the core (membership = 1)
+	 */
+	public abstract double getCoreMin();
+
+	/**
+	 * @return right bound of the core (membership = 1)
+	 */
+	public abstract double getCoreMax();
+
+	/**
+	 * @return left bound of the support (membership > 0), may be -infinity
+	 */
+	public abstract double getSupportMin();
+
+	/**
+	 * @return right bound of the support (membership > 0), may be +infinity
+	 */
+	public abstract double getSupportMax();
+
+	/**
+	 * @return area under membership function (may be infinity)
+	 */
+	public abstract double getArea();
+
+	/**
+	 * @return center of gravity of membership function
+	 */
+	public abstract double getCentroid();
+
+	/**
+	 * Creates piecewise-linear description of the shape.
+	 *
+	 * @param dest destination set (previous description is lost)
+	 * @return destination set
+	 */
+	public abstract FuzzySet toFuzzySet(FuzzySet dest);
+
+	/**
+	 * @return height of the shape (supremum of membership)
+	 */
+	public double getHeight() {
+		return 1.0;
+	}
+
+	// x on the increasing slope with membership h (0 < h < 1), -infinity if
+	// there's no such slope
+	protected abstract double leftX(double h);
+
+	// x on the decreasing slope with membership h (0 < h < 1), +infinity if
+	// there's no such slope
+	protected abstract double rightX(double h);
+
+	protected int leftKind() {
+		return SLOPE_OTHER;
+	}
+
+	protected int rightKind() {
+		return SLOPE_OTHER;
+	}
+
+	protected double leftWidth() {
+		return 0.0;
+	}
+
+	protected double rightWidth() {
+		return 0.0;
+	}
+
+	/**
+	 * Calculates height of intersection (supremum of minimum) of this shape and
+	 * another shape. If cores overlap the result is 1. Otherwise it is the level
+	 * where the decreasing slope of the left shape crosses the increasing slope of
+	 * the right shape - calculated in closed form for pairs of linear or gaussian
+	 * slopes and by bisection of the level for other slopes.
+	 *
+	 * @param other the other shape
+	 * @return height of intersection
+	 */
+	public double intersectionHeight(Shape other) {
+		Shape a, b;
+		if (getCoreMax() < other.getCoreMin()) {
+			a = this;
+			b = other;
+		} else if (other.getCoreMax() < getCoreMin()) {
+			a = other;
+			b = this;
+		} else
+			return 1.0;
+
+		// disjoint supports
+		if (a.getSupportMax() <= b.getSupportMin())
+			return 0.0;
+
+		int kind = a.rightKind();
+		if (kind != SLOPE_OTHER && kind == b.leftKind()) {
+			double u = (b.getCoreMin() - a.getCoreMax()) / (a.rightWidth() + b.leftWidth());
+			if (kind == SLOPE_LINEAR)
+				return u < 1.0 ? 1.0 - u : 0.0;
+			return Math.exp(-u * u / 2.0);
+		}
+
+		// bisection: a.rightX(h) - b.leftX(h) decreases with h
+		double lo = 0.0, hi = 1.0, mid;
+		for (int i = 0; i < 100 && hi - lo > 1e-15; i++) {
+			mid = (lo + hi) / 2.0;
+			if (a.rightX(mid) > b.leftX(mid))
+				lo = mid;
+			else
+				hi = mid;
+		}
+		return lo;
+	}
+
+	/**
+	 * Creates piecewise-linear description by membership levels: points of both
+	 * slopes are placed at levels 1/n, 2/n, ..., (n-1)/n. Description is completed
+	 * with the core and bounds of a given range.
+	 *
+	 * @param dest destination set (previous description is lost)
+	 * @param lo   left bound of described range
+	 * @param hi   right bound of described range
+	 * @param n    number of levels
+	 * @return destination set
+	 */
+	public FuzzySet toFuzzySet(FuzzySet dest, double lo, double hi, int n) {
+		if (n < 2)
+			n = 2;
+		double x, h;
+		dest.ClearSet();
+		dest.addPoint(lo, getMembership(lo));
+		for (int k = 1; k < n; k++) {
+			h = (double) k / n;
+			x = leftX(h);
+			if (x > lo && x < hi)
+				dest.addPoint(x, h);
+		}
+		if (getCoreMin() > lo && getCoreMin() < hi)
+			dest.addPoint(getCoreMin(), 1.0);
+		if (getCoreMax() > lo && getCoreMax() < hi)
+			dest.addPoint(getCoreMax(), 1.0);
+		for (int k = n - 1; k > 0; k--) {
+			h = (double) k / n;
+			x = rightX(h);
+			if (x > lo && x < hi)
+				dest.addPoint(x, h);
+		}
+		dest.addPoint(hi, getMembership(hi));
+		return dest;
+	}
+
+	/**
+	 * Creates piecewise-linear description with the fewest points keeping
+	 * absolute error of membership within a given bound. Points are placed
+	 * densely where the function bends and sparsely where it is almost linear.
+	 * The described range ends where membership falls to maxError. Shapes without
+	 * bounded range (sigmoid) override this method.
+	 *
+	 * The bound is approximate - see toFuzzySetAdaptive(FuzzySet, double, double,
+	 * double).
+	 *
+	 * @param dest     destination set (previous description is lost)
+	 * @param maxError maximum absolute error of membership (approximate). If the
+	 *                 parameter value is <= 0 then it is set to 0.001, values
+	 *                 above 0.5 are set to 0.5.
+	 * @return destination set
+	 */
+	public FuzzySet toFuzzySetAdaptive(FuzzySet dest, double maxError) {
+		maxError = _clampError(maxError);
+		return toFuzzySetAdaptive(dest, leftX(maxError), rightX(maxError), maxError);
+	}
+
+	/**
+	 * Creates piecewise-linear description of a given range with the fewest
+	 * points keeping absolute error of membership within a given bound. Bounds of
+	 * the core are always described by points. Between them points are placed
+	 * greedily - each segment is extended as far as its chord stays within the
+	 * error bound.
+	 *
+	 * The error of a chord is not calculated analytically - it is measured at 16
+	 * points inside the segment and has to stay below 98% of the bound. For
+	 * smooth shapes of this package the real error stays within the bound, but
+	 * it is not guaranteed in general (the maximum may lie between measured
+	 * points).
+	 *
+	 * @param dest     destination set (previous description is lost)
+	 * @param lo       left bound of described range
+	 * @param hi       right bound of described range
+	 * @param maxError maximum absolute error of membership (approximate). If the
+	 *                 parameter value is <= 0 then it is set to 0.001, values
+	 *                 above 0.5 are set to 0.5.
+	 * @return destination set
+	 */
+	public FuzzySet toFuzzySetAdaptive(FuzzySet dest, double lo, double hi, double maxError) {
+		maxError = _clampError(maxError);
+		double sampledError = maxError * ERROR_MARGIN;
+		if (hi < lo) {
+			double tmp = lo;
+			lo = hi;
+			hi = tmp;
+		}
+		dest.ClearSet();
+		dest.addPoint(lo, getMembership(lo));
+		double x = lo;
+		if (getCoreMin() > x && getCoreMin() < hi) {
+			_addAdaptive(dest, x, getCoreMin(), sampledError);
+			x = getCoreMin();
+		}
+		if (getCoreMax() > x && getCoreMax() < hi) {
+			_addAdaptive(dest, x, getCoreMax(), sampledError);
+			x = getCoreMax();
+		}
+		if (hi > x)
+			_addAdaptive(dest, x, hi, sampledError);
+		return dest;
+	}
+
+	private static double _clampError(double maxError) {
+		if (maxError <= 0.0)
+			return 0.001;
+		return maxError > 0.5 ? 0.5 : maxError;
+	}
+
+	// number of inner samples used to measure error of a chord
+	private static final int ERROR_SAMPLES = 16;
+	// part of error bound accepted for sampled error - the maximum may lie
+	// between samples
+	private static final double ERROR_MARGIN = 0.98;
+
+	// largest difference between membership and chord (x0,y0)-(x1,y1) measured
+	// at ERROR_SAMPLES points (approximation of the real maximum)
+	private double _chordError(double x0, double y0, double x1, double y1) {
+		double err = 0.0, x, d;
+		for (int i = 1; i <= ERROR_SAMPLES; i++) {
+			x = x0 + (x1 - x0) * i / (ERROR_SAMPLES + 1);
+			d = Math.abs(getMembership(x) - (y0 + (y1 - y0) * (x - x0) / (x1 - x0)));
+			if (err < d)
+				err = d;
+		}
+		return err;
+	}
+
+	// adds points describing (a,b] - the point at a is already described
+	private void _addAdaptive(FuzzySet dest, double a, double b, double maxError) {
+		double x0 = a, y0 = getMembership(a), step = (b - a) / 8.0;
+		double good, bad, t, minStep = (b - a) * 1e-9;
+
+		while (x0 < b) {
+			// find any acceptable end of segment and the first unacceptable one
+			t = Math.min(x0 + step, b);
+			if (_chordError(x0, y0, t, getMembership(t)) <= maxError) {
+				good = t;
+				bad = Double.NaN;
+				while (good < b) {
+					t = Math.min(x0 + 2.0 * (good - x0), b);
+					if (_chordError(x0, y0, t, getMembership(t)) <= maxError)
+						good = t;
+					else {
+						bad = t;
+						break;
+					}
+				}
+			} else {
+				bad = t;
+				good = x0;
+				while (bad - x0 > minStep) {
+					t = x0 + (bad - x0) / 2.0;
+					if (_chordError(x0, y0, t, getMembership(t)) <= maxError) {
+						good = t;
+						break;
+					}
+					bad = t;
+				}
+				if (good == x0) // error bound can't be kept - accept tiny step
+					good = bad;
+			}
+			// bisection between acceptable and unacceptable end
+			if (!Double.isNaN(bad)) {
+				while (bad - good > (good - x0) * 0.001) {
+					t = (good + bad) / 2.0;
+					if (_chordError(x0, y0, t, getMembership(t)) <= maxError)
+						good = t;
+					else
+						bad = t;
+				}
+			}
+			step = good - x0;
+			x0 = good;
+			y0 = getMembership(x0);
+			dest.addPoint(x0, y0);
+		}
+	}
+
+	@Override
+	public String toString() {
+		return this.getClass().getName().substring(this.getClass().getName().lastIndexOf(".") + 1);
+	}
+}